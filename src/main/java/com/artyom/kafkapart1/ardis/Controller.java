@@ -1,62 +1,43 @@
 package com.artyom.kafkapart1.ardis;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class Controller {
+    private static final Logger log = LoggerFactory.getLogger(Controller.class);
 
+    /*
+        the enumeration grows exponentially with cycles and fan-in, keep one explore response bounded
+     */
+    static final int MAX_PATH_DEPTH = 16;
+    static final long MAX_PATHS = 100_000;
 
-    private static Map<String, List<String>> extractRelationShortcut(ExploreResponse exploreResponse) {
-        Map<String, Object> analytics = exploreResponse.getAnalytics();
-        CommonSection relationship = (CommonSection) analytics.get("relationship");
-        JsonObject data = relationship.getData();
-
-        Map<String, String> idToName = new LinkedHashMap<>();
-        data.getAsJsonArray("nodes").forEach(n -> {
-            JsonObject node = n.getAsJsonObject();
-            String id = node.get("id").getAsString();
-            String title = node.get("title").getAsString();
-            String nodeType = node.get("nodeType").getAsString();
-
-            idToName.put(id, nodeType + ": " + title);
-        });
-
-        Map<String, List<Edge>> graph = new HashMap<>();
-        data.getAsJsonArray("edges").forEach(e -> {
-            JsonObject edge = e.getAsJsonObject();
-            String source = edge.get("source").getAsString();
-            String target = edge.get("target").getAsString();
-            String title = edge.get("title").getAsString();
-
-            graph.computeIfAbsent(target, k -> new ArrayList<>()).add(new Edge(source, title));
-        });
+    static Map<String, List<String>> extractRelationShortcut(ExploreResponse exploreResponse) {
+        return extractRelationShortcut(RelationGraph.of(exploreResponse));
+    }
 
+    static Map<String, List<String>> extractRelationShortcut(RelationGraph graph) {
         Map<String, List<String>> result = new LinkedHashMap<>();
 
-        for (String targetId : idToName.keySet()) {
-            List<Edge> edges = graph.get(targetId);
-            if (edges == null) continue;
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            int target = graph.node(i);
+            if (!graph.hasIncoming(target)) continue;
 
-            String targetName = idToName.get(targetId);
-            List<String> relations = new ArrayList<>();
+            String targetName = graph.name(target);
+            List<String> relations = new ArrayList<>(graph.end(target) - graph.start(target));
 
-            for (Edge edge : edges) {
-                String relation = edge.relation;
-                String sourceName = idToName.get(edge.source);
-                relations.add(relation + ": " + sourceName);
+            for (int edge = graph.start(target); edge < graph.end(target); edge++) {
+                relations.add(graph.relation(edge) + ": " + graph.name(graph.source(edge)));
             }
 
-            if (!relations.isEmpty()) {
-                result.put(targetName, relations);
-            }
+            result.put(targetName, relations);
         }
 
         JsonObject jsonObject = new JsonObject();
@@ -86,126 +67,21 @@ public class Controller {
     }
 
 
-    private static List<String> extractRelationShortcutDFS(ExploreResponse exploreResponse) {
-        Map<String, Object> analytics = exploreResponse.getAnalytics();
-        CommonSection relationship = (CommonSection) analytics.get("relationship");
-        JsonObject data = relationship.getData();
-
-        Map<String, String> idToName = new LinkedHashMap<>();
-        data.getAsJsonArray("nodes").forEach(n -> {
-            JsonObject node = n.getAsJsonObject();
-            String id = node.get("id").getAsString();
-            String title = node.get("title").getAsString();
-            String nodeType = node.get("nodeType").getAsString();
-
-            idToName.put(id, nodeType + ": " + title);
-        });
-
-        Map<String, List<Edge>> graph = new HashMap<>();
-        data.getAsJsonArray("edges").forEach(e -> {
-            JsonObject edge = e.getAsJsonObject();
-            String source = edge.get("source").getAsString();
-            String target = edge.get("target").getAsString();
-            String title = edge.get("title").getAsString();
-
-            graph.computeIfAbsent(target, k -> new ArrayList<>()).add(new Edge(source, title));
-        });
-
-        Set<String> visited = new HashSet<>();
-        List<List<String>> allPaths = new ArrayList<>();
-
-        for (String nodeId : idToName.keySet()) {
-            dfs(nodeId, idToName.get(nodeId), idToName, graph, visited, new ArrayList<>(), allPaths);
-        }
-
-        Node root = new Node("ROOT");
-        for (List<String> path : allPaths) {
-            insertPath(root, path);
-        }
-
-        List<String> result = new ArrayList<>();
-        for (Node child : root.children.values()) {
-            result.add(serializeNode(child));
-        }
-        Map<String, Object> relationMap = convertTreeToMap(root);
-
-        result =  result.stream().filter(r -> r.contains("->")).toList();
-
-        return result;
-    }
-
-
-    private static void insertPath(Node root, List<String> path) {
-        Node current = root;
-        for (String part : path) {
-            current = current.children.computeIfAbsent(part, Node::new);
-        }
-    }
-
-
-    private static String serializeNode(Node node) {
-        if (node.children.isEmpty()) {
-            return node.value;
-        }
-        List<String> parts = new ArrayList<>();
-        for (Node child : node.children.values()) {
-            parts.add(serializeNode(child));
-        }
-        return node.value + " -> [" + String.join(", ", parts) + "]";
-    }
-
-    private static Map<String, Object> convertTreeToMap(Node node) {
-        Map<String, Object> map = new LinkedHashMap<>();
-        for (Map.Entry<String, Node> entry : node.children.entrySet()) {
-            Node child = entry.getValue();
-            if (child.children.isEmpty()) {
-                map.put(child.value, null);
-            } else {
-                map.put(child.value, convertTreeToMap(child));
-            }
-        }
-        return map;
+    static List<String> extractRelationShortcutDFS(ExploreResponse exploreResponse) {
+        return extractRelationShortcutDFS(RelationGraph.of(exploreResponse));
     }
 
-    private static void dfs(String nodeId, String label, Map<String, String> idToName,
-                            Map<String, List<Edge>> graph, Set<String> visited,
-                            List<String> path, List<List<String>> allPaths) {
-        if (visited.contains(nodeId)) return;
-        visited.add(nodeId);
-
-        path.add(label);
-        if (!graph.containsKey(nodeId)) {
-            allPaths.add(new ArrayList<>(path));
-        } else {
-            for (Edge edge : graph.get(nodeId)) {
-                String relation = edge.relation;
-                String nextLabel = idToName.get(edge.source);
-                path.add(relation);
-                dfs(edge.source, nextLabel, idToName, graph, visited, path, allPaths);
-                path.removeLast();
-            }
-        }
-
-        path.removeLast();
-        visited.remove(nodeId);
+    static List<String> extractRelationShortcutDFS(RelationGraph graph) {
+        return extractRelationShortcutDFS(graph, MAX_PATH_DEPTH, MAX_PATHS);
     }
 
-    private static class Edge {
-        String source;
-        String relation;
-
-        Edge(String source, String relation) {
-            this.source = source;
-            this.relation = relation;
+    static List<String> extractRelationShortcutDFS(RelationGraph graph, int maxDepth, long maxPaths) {
+        PathQuery.Result paths = new PathQuery(graph, maxDepth, maxPaths).run();
+        if (paths.truncated()) {
+            log.warn("relationship paths truncated at {} paths (max depth {}, max paths {})",
+                     paths.paths(), maxDepth, maxPaths);
         }
-    }
 
-    private static class Node {
-        String value;
-        Map<String, Node> children = new LinkedHashMap<>();
-
-        Node(String value) {
-            this.value = value;
-        }
+        return paths.trees().stream().filter(r -> r.contains("->")).toList();
     }
 }
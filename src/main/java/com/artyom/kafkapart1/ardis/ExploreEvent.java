@@ -0,0 +1,59 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.google.gson.Gson;
+
+/*
+    one step of an exploration on the explore-events topic, keyed by projectId:
+    either a finished section or a status transition.
+
+    kept as Gson json end to end, CommonSection.data is a JsonObject that Jackson cannot write
+
+    MALFORMED stands in for a payload that is not an event, so one bad record is skipped instead of failing the stream
+ */
+public record ExploreEvent(
+    String projectId,
+    ProcessStatus status,
+    CommonSection section
+) {
+
+    public static final ExploreEvent MALFORMED = new ExploreEvent(null, null, null);
+
+    private static final Gson GSON = new Gson();
+
+    public static ExploreEvent section(String projectId, CommonSection section) {
+        return new ExploreEvent(projectId, null, section);
+    }
+
+    public static ExploreEvent status(String projectId, ProcessStatus status) {
+        return new ExploreEvent(projectId, status, null);
+    }
+
+    public static ExploreEvent fromJson(byte[] json) {
+        return GSON.fromJson(new String(json, StandardCharsets.UTF_8), ExploreEvent.class);
+    }
+
+    public String toJson() {
+        return GSON.toJson(this);
+    }
+
+    /*
+        no more events follow for the project
+     */
+    public boolean terminal() {
+        return section == null
+            && (status == ProcessStatus.DONE || status == ProcessStatus.STOPPED || status == ProcessStatus.ERROR);
+    }
+
+    /*
+        "status", or the lower case view of the section
+     */
+    public String name() {
+        if (section == null) {
+            return "status";
+        }
+        return section.getView() == null ? "section" : section.getView().name().toLowerCase(Locale.ROOT);
+    }
+}
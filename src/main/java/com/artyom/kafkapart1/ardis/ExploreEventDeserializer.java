@@ -0,0 +1,23 @@
+package com.artyom.kafkapart1.ardis;
+
+import com.google.gson.JsonParseException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class ExploreEventDeserializer implements Deserializer<ExploreEvent> {
+
+    /*
+        null stays a tombstone, anything that does not parse becomes ExploreEvent.MALFORMED
+     */
+    @Override
+    public ExploreEvent deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            var event = ExploreEvent.fromJson(data);
+            return event == null ? ExploreEvent.MALFORMED : event;
+        } catch (JsonParseException e) {
+            return ExploreEvent.MALFORMED;
+        }
+    }
+}
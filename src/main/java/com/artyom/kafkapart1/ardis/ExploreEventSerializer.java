@@ -0,0 +1,13 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class ExploreEventSerializer implements Serializer<ExploreEvent> {
+
+    @Override
+    public byte[] serialize(String topic, ExploreEvent data) {
+        return data == null ? null : data.toJson().getBytes(StandardCharsets.UTF_8);
+    }
+}
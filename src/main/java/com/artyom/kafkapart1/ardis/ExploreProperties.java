@@ -0,0 +1,19 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+    app.kafka.explore.bootstrap-servers=localhost:9092
+    app.kafka.explore.topic=explore-events
+    app.kafka.explore.lookback=1h            how far back a new subscriber looks for the project's run
+ */
+@ConfigurationProperties(prefix = "app.kafka.explore")
+public record ExploreProperties(
+    @DefaultValue("localhost:9092") String bootstrapServers,
+    @DefaultValue("explore-events") String topic,
+    @DefaultValue("1h") Duration lookback
+) {
+}
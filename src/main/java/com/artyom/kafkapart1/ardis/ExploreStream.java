@@ -0,0 +1,158 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.replay.PartitionRange;
+import com.artyom.kafkapart1.replay.ReplayEngine;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.utils.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    events of one project, from the start of its latest exploration until its final status
+
+    explore-events (key: projectId) ---> partition of the key only ---> filter key ---> until DONE / STOPPED / ERROR
+
+    every subscriber reads the partition the default partitioner picks for the key, without a group:
+
+    history ---> the last `lookback` of the partition (offset for timestamp .. end offset at subscription),
+                 replayed and cut to the latest run of the project: what follows its last terminal event,
+                 or the finished run itself when the history ends with one
+    tail    ---> from that end offset on, live
+
+    so a late client still gets the sections produced before it connected, a re-used projectId does not stop
+    at the previous run's DONE, and nothing older than the lookback is read.
+    receive() pauses the partition while the subscriber has no demand, a slow client never buffers more than
+    one fetch. nothing connects to Kafka until the first subscription.
+    a record of the project that is not an event is logged and skipped, in the history as in the tail
+ */
+@Component
+public class ExploreStream implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ExploreStream.class);
+
+    private static final Duration PARTITION_COUNT_TTL = Duration.ofMinutes(1);
+
+    private final ExploreProperties properties;
+    private final ReplayEngine<String, ExploreEvent> history;
+    private final Mono<Integer> partitionCount;
+    private Admin admin;
+
+    public ExploreStream(ExploreProperties properties) {
+        this.properties = properties;
+        this.history = new ReplayEngine<>(consumerConfig());
+        this.partitionCount = Mono.defer(() -> Mono.fromCompletionStage(
+                admin().describeTopics(List.of(properties.topic())).allTopicNames().toCompletionStage()))
+            .map(topics -> topics.get(properties.topic()).partitions().size())
+            .cache(count -> PARTITION_COUNT_TTL, error -> Duration.ZERO, () -> Duration.ZERO);
+    }
+
+    public Flux<ExploreEvent> events(String projectId) {
+        return partitionCount
+            .map(count -> new TopicPartition(properties.topic(), partition(projectId, count)))
+            .flatMap(this::recent)
+            .flatMapMany(range -> project(history.replay(List.of(range)), projectId)
+                .collectList()
+                .flatMapIterable(ExploreStream::latestRun)
+                .concatWith(Flux.defer(() -> project(KafkaReceiver.create(tail(range)).receive(), projectId))))
+            .takeUntil(ExploreEvent::terminal);
+    }
+
+    /*
+        events after the last terminal one, or the last finished run when the history ends with its terminal event
+     */
+    static List<ExploreEvent> latestRun(List<ExploreEvent> history) {
+        int end = history.size();
+        if (end > 0 && history.get(end - 1).terminal()) {
+            end--;
+        }
+        int start = end;
+        while (start > 0 && !history.get(start - 1).terminal()) {
+            start--;
+        }
+        return history.subList(start, history.size());
+    }
+
+    /*
+        same choice as the producer's default partitioner for a non null key
+     */
+    static int partition(String key, int partitions) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % partitions;
+    }
+
+    private static Flux<ExploreEvent> project(Flux<? extends ConsumerRecord<String, ExploreEvent>> records,
+                                              String projectId) {
+        return records
+            .filter(record -> projectId.equals(record.key()) && record.value() != null)
+            .filter(record -> {
+                if (record.value() == ExploreEvent.MALFORMED) {
+                    log.warn("skipping malformed event at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                    return false;
+                }
+                return true;
+            })
+            .map(ConsumerRecord::value);
+    }
+
+    /*
+        first offset inside the lookback .. end offset, an empty range when nothing was written since
+     */
+    private Mono<PartitionRange> recent(TopicPartition partition) {
+        var since = OffsetSpec.forTimestamp(System.currentTimeMillis() - properties.lookback().toMillis());
+        return Mono.zip(offset(partition, since), offset(partition, OffsetSpec.latest()))
+            .map(offsets -> new PartitionRange(partition, offsets.getT1() < 0 ? offsets.getT2() : offsets.getT1(),
+                                               offsets.getT2()));
+    }
+
+    private Mono<Long> offset(TopicPartition partition, OffsetSpec spec) {
+        return Mono.defer(() -> Mono.fromCompletionStage(
+                admin().listOffsets(Map.of(partition, spec)).partitionResult(partition).toCompletionStage()))
+            .map(ListOffsetsResultInfo::offset);
+    }
+
+    private ReceiverOptions<String, ExploreEvent> tail(PartitionRange range) {
+        return ReceiverOptions.<String, ExploreEvent>create(consumerConfig())
+            .assignment(List.of(range.partition()))
+            .addAssignListener(partitions -> partitions.forEach(p -> p.seek(range.end())));
+    }
+
+    private Map<String, Object> consumerConfig() {
+        return Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.bootstrapServers(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ExploreEventDeserializer.class,
+            ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false
+        );
+    }
+
+    private synchronized Admin admin() {
+        if (admin == null) {
+            admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, properties.bootstrapServers()));
+        }
+        return admin;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (admin != null) {
+            admin.close(Duration.ofSeconds(5));
+            admin = null;
+        }
+    }
+}
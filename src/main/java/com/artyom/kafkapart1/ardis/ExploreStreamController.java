@@ -0,0 +1,51 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.Set;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+/*
+    GET /explore/{projectId}/events                    Accept: text/event-stream       event: graph / table / ... / status
+    GET /explore/{projectId}/events?view=GRAPH&view=MAP Accept: application/x-ndjson   one event json per line
+
+    the stream ends after DONE, STOPPED or ERROR, status events are sent whatever the view filter
+ */
+@RestController
+@RequestMapping("/explore/{projectId}/events")
+public class ExploreStreamController {
+
+    private final ExploreStream stream;
+
+    public ExploreStreamController(ExploreStream stream) {
+        this.stream = stream;
+    }
+
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> serverSentEvents(@PathVariable String projectId,
+                                                          @RequestParam(name = "view", required = false) Set<View> views) {
+        return events(projectId, views)
+            .map(event -> ServerSentEvent.builder(event.toJson())
+                .event(event.name())
+                .build());
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<String> ndjson(@PathVariable String projectId,
+                               @RequestParam(name = "view", required = false) Set<View> views) {
+        return events(projectId, views)
+            .map(event -> event.toJson() + "\n");
+    }
+
+    private Flux<ExploreEvent> events(String projectId, Set<View> views) {
+        return stream.events(projectId)
+            .filter(event -> views == null || views.isEmpty() || event.section() == null
+                || views.contains(event.section().getView()));
+    }
+}
@@ -0,0 +1,317 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    simple paths of a RelationGraph folded into a trie, without materializing the path list
+
+        "PERSON: A" ---> "owns" ---> "ORGANIZATION: B" ---> "director" ---> "PERSON: C"
+                    ---> "works" --> "PERSON: C"
+
+    every declared node starts a walk over its incoming edges, a node already on the walk is a cycle and
+    ends that branch without a path. sub-tries are built bottom up and merged into the parent as the walk returns.
+
+    the sub-trie of a node outside any cycle does not depend on how the node was reached, so it is built once,
+    frozen and shared by every parent. merging into a frozen node copies it first.
+
+    maxDepth caps the number of edges of a path, the node at that depth becomes a leaf.
+    maxPaths caps the number of enumerated paths, the walk stops as soon as the budget is spent.
+    both mark the result as truncated
+ */
+public final class PathQuery {
+
+    public static final int UNBOUNDED_DEPTH = Integer.MAX_VALUE;
+    public static final long UNBOUNDED_PATHS = Long.MAX_VALUE;
+
+    private static final Node CUT = new Node(null);
+
+    private final RelationGraph graph;
+    private final int maxDepth;
+    private final long maxPaths;
+
+    private boolean[] cyclic;
+    private boolean[] onPath;
+    private Node[] memo;
+    private long remaining;
+    private boolean truncated;
+
+    public PathQuery(RelationGraph graph, int maxDepth, long maxPaths) {
+        this.graph = graph;
+        this.maxDepth = maxDepth;
+        this.maxPaths = maxPaths;
+    }
+
+    public Result run() {
+        cyclic = cyclicNodes(graph);
+        onPath = new boolean[graph.size()];
+        memo = new Node[graph.size()];
+        remaining = maxPaths;
+        truncated = false;
+
+        Node root = new Node("ROOT");
+        for (int i = 0; i < graph.nodeCount(); i++) {
+            if (remaining == 0) {
+                truncated = true;
+                break;
+            }
+            Node tree = explore(graph.node(i), 0);
+            if (tree != null) {
+                add(root, tree);
+            }
+        }
+        Result result = new Result(root, maxPaths - remaining, truncated);
+        cyclic = null;
+        onPath = null;
+        memo = null;
+        return result;
+    }
+
+    private Node explore(int node, int depth) {
+        if (onPath[node]) {
+            return null;
+        }
+        Node known = memo[node];
+        if (known == CUT) {
+            return null;
+        }
+        if (known != null && known.height <= maxDepth - depth && known.paths <= remaining) {
+            remaining -= known.paths;
+            return known;
+        }
+        if (remaining == 0) {
+            truncated = true;
+            return null;
+        }
+        if (!graph.hasIncoming(node) || depth == maxDepth) {
+            Node leaf = new Node(graph.name(node));
+            leaf.paths = 1;
+            remaining--;
+            if (graph.hasIncoming(node)) {
+                truncated = true;
+            } else {
+                leaf.frozen = true;
+                memo[node] = leaf;
+            }
+            return leaf;
+        }
+
+        boolean outerTruncated = truncated;
+        truncated = false;
+        onPath[node] = true;
+
+        Node tree = new Node(graph.name(node));
+        for (int edge = graph.start(node); edge < graph.end(node); edge++) {
+            if (remaining == 0) {
+                truncated = true;
+                break;
+            }
+            Node source = explore(graph.source(edge), depth + 1);
+            if (source == null) {
+                continue;
+            }
+            add(tree.children.computeIfAbsent(graph.relation(edge), Node::new), source);
+            tree.paths += source.paths;
+            tree.height = Math.max(tree.height, source.height + 1);
+        }
+
+        onPath[node] = false;
+        if (tree.children.isEmpty()) {
+            tree = null;
+        }
+        if (!truncated && !cyclic[node]) {
+            if (tree == null) {
+                memo[node] = CUT;
+            } else {
+                freeze(tree);
+                memo[node] = tree;
+            }
+        }
+        truncated |= outerTruncated;
+        return tree;
+    }
+
+    /*
+        merges child into the children of parent, parent must not be frozen
+     */
+    private static void add(Node parent, Node child) {
+        Node existing = parent.children.get(child.value);
+        if (existing == null) {
+            parent.children.put(child.value, child);
+            return;
+        }
+        if (existing.frozen) {
+            existing = existing.copy();
+            parent.children.put(child.value, existing);
+        }
+        for (Node grandChild : child.children.values()) {
+            add(existing, grandChild);
+        }
+    }
+
+    private static void freeze(Node node) {
+        if (node.frozen) {
+            return;
+        }
+        node.frozen = true;
+        for (Node child : node.children.values()) {
+            freeze(child);
+        }
+    }
+
+    /*
+        nodes on a cycle (strongly connected component with more than one node, or a self loop),
+        iterative tarjan over the incoming edges
+     */
+    static boolean[] cyclicNodes(RelationGraph graph) {
+        int size = graph.size();
+        int[] index = new int[size];
+        int[] low = new int[size];
+        int[] nextEdge = new int[size];
+        boolean[] onStack = new boolean[size];
+        int[] stack = new int[size];
+        int[] callStack = new int[size];
+        boolean[] cyclic = new boolean[size];
+        int stackSize = 0;
+        int counter = 0;
+
+        for (int start = 0; start < size; start++) {
+            if (index[start] != 0) {
+                continue;
+            }
+            int depth = 0;
+            callStack[depth++] = start;
+            index[start] = low[start] = ++counter;
+            nextEdge[start] = graph.start(start);
+            stack[stackSize++] = start;
+            onStack[start] = true;
+
+            while (depth > 0) {
+                int node = callStack[depth - 1];
+                if (nextEdge[node] < graph.end(node)) {
+                    int source = graph.source(nextEdge[node]++);
+                    if (source == node) {
+                        cyclic[node] = true;
+                    } else if (index[source] == 0) {
+                        index[source] = low[source] = ++counter;
+                        nextEdge[source] = graph.start(source);
+                        stack[stackSize++] = source;
+                        onStack[source] = true;
+                        callStack[depth++] = source;
+                    } else if (onStack[source]) {
+                        low[node] = Math.min(low[node], index[source]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (depth > 0) {
+                    int parent = callStack[depth - 1];
+                    low[parent] = Math.min(low[parent], low[node]);
+                }
+                if (low[node] == index[node]) {
+                    boolean component = stack[stackSize - 1] != node;
+                    int member;
+                    do {
+                        member = stack[--stackSize];
+                        onStack[member] = false;
+                        cyclic[member] |= component;
+                    } while (member != node);
+                }
+            }
+        }
+        return cyclic;
+    }
+
+    public static final class Result {
+        private final Node root;
+        private final long paths;
+        private final boolean truncated;
+
+        private Result(Node root, long paths, boolean truncated) {
+            this.root = root;
+            this.paths = paths;
+            this.truncated = truncated;
+        }
+
+        /*
+            number of enumerated paths, before paths with the same labels are merged
+         */
+        public long paths() {
+            return paths;
+        }
+
+        /*
+            true when maxDepth or maxPaths cut the enumeration short
+         */
+        public boolean truncated() {
+            return truncated;
+        }
+
+        /*
+            one "label -> [relation -> [label, ...], ...]" string per start node
+         */
+        public List<String> trees() {
+            List<String> trees = new ArrayList<>(root.children.size());
+            for (Node child : root.children.values()) {
+                trees.add(serialize(child));
+            }
+            return trees;
+        }
+
+        /*
+            label -> nested map of children, leaves map to null
+         */
+        public Map<String, Object> toMap() {
+            return toMap(root);
+        }
+
+        private static String serialize(Node node) {
+            if (node.serialized != null) {
+                return node.serialized;
+            }
+            if (node.children.isEmpty()) {
+                return node.value;
+            }
+            List<String> parts = new ArrayList<>(node.children.size());
+            for (Node child : node.children.values()) {
+                parts.add(serialize(child));
+            }
+            String serialized = node.value + " -> [" + String.join(", ", parts) + "]";
+            if (node.frozen) {
+                node.serialized = serialized;
+            }
+            return serialized;
+        }
+
+        private static Map<String, Object> toMap(Node node) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Node child : node.children.values()) {
+                map.put(child.value, child.children.isEmpty() ? null : toMap(child));
+            }
+            return map;
+        }
+    }
+
+    private static class Node {
+        String value;
+        Map<String, Node> children = new LinkedHashMap<>();
+        long paths;
+        int height;
+        boolean frozen;
+        String serialized;
+
+        Node(String value) {
+            this.value = value;
+        }
+
+        Node copy() {
+            Node copy = new Node(value);
+            copy.children = new LinkedHashMap<>(children);
+            copy.paths = paths;
+            copy.height = height;
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+    relationship graph of one project, grown delta by delta
+
+    shortcuts are kept per node and only the neighborhood of a delta is rebuilt:
+
+        EDGE s ---> t      the shortcut list of t gets one entry
+        NODE n (renamed)   the lists of n and of every node n points to, they carry n's name
+
+    shortcuts() matches Controller.extractRelationShortcut over the same nodes and edges.
+    methods are synchronized, deltas come from the receiver thread while snapshots are read elsewhere
+ */
+public class ProjectGraph {
+
+    private final String projectId;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final Map<String, Integer> relationIds = new HashMap<>();
+    private final List<String> externalIds = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<String> relationTitles = new ArrayList<>();
+    private final List<IntList> incoming = new ArrayList<>();
+    private final List<IntList> outgoing = new ArrayList<>();
+    private final List<List<String>> shortcuts = new ArrayList<>();
+    private final IntList declared = new IntList();
+    private final IntList edges = new IntList();
+
+    private ProcessStatus status = ProcessStatus.RUNNING;
+    private long version;
+
+    public ProjectGraph(String projectId) {
+        this.projectId = projectId;
+    }
+
+    public String projectId() {
+        return projectId;
+    }
+
+    public synchronized RelationUpdate apply(RelationDelta delta) {
+        Map<String, List<String>> changed = switch (delta.type()) {
+            case NODE -> node(delta.id(), delta.nodeType(), delta.title());
+            case EDGE -> edge(delta.source(), delta.target(), delta.title());
+            case STATUS -> {
+                status = delta.status();
+                yield Map.of();
+            }
+        };
+        return new RelationUpdate(projectId, status, ++version, changed);
+    }
+
+    public synchronized ProcessStatus status() {
+        return status;
+    }
+
+    public synchronized RelationSnapshot snapshot() {
+        return new RelationSnapshot(projectId, status, version, shortcuts());
+    }
+
+    public synchronized Map<String, List<String>> shortcuts() {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for (int i = 0; i < declared.size; i++) {
+            int node = declared.values[i];
+            List<String> relations = shortcuts.get(node);
+            if (relations != null) {
+                result.put(names.get(node), List.copyOf(relations));
+            }
+        }
+        return result;
+    }
+
+    /*
+        immutable copy for the path queries, same node and edge order as the deltas:
+        the graph RelationGraphReader reads from a payload listing them in that order
+     */
+    public synchronized RelationGraph relationGraph() {
+        var builder = RelationGraph.builder();
+        for (int i = 0; i < declared.size; i++) {
+            int node = declared.values[i];
+            builder.named(externalIds.get(node), names.get(node));
+        }
+        for (int i = 0; i < edges.size; i += 3) {
+            builder.edge(externalIds.get(edges.values[i]), externalIds.get(edges.values[i + 1]),
+                         relationTitles.get(edges.values[i + 2]));
+        }
+        return builder.build();
+    }
+
+    private Map<String, List<String>> node(String id, String nodeType, String title) {
+        int node = intern(id);
+        if (names.get(node) == null) {
+            declared.add(node);
+        }
+        names.set(node, nodeType + ": " + title);
+
+        Map<String, List<String>> changed = new LinkedHashMap<>();
+        rebuild(node, changed);
+        IntList targets = outgoing.get(node);
+        for (int i = 0; i < targets.size; i++) {
+            rebuild(targets.values[i], changed);
+        }
+        return changed;
+    }
+
+    private Map<String, List<String>> edge(String source, String target, String title) {
+        int from = intern(source);
+        int to = intern(target);
+        int relation = relationIds.computeIfAbsent(title, t -> {
+            relationTitles.add(t);
+            return relationTitles.size() - 1;
+        });
+        incoming.get(to).add(from);
+        incoming.get(to).add(relation);
+        outgoing.get(from).add(to);
+        edges.add(from);
+        edges.add(to);
+        edges.add(relation);
+
+        List<String> relations = shortcuts.get(to);
+        if (relations == null) {
+            relations = new ArrayList<>();
+            shortcuts.set(to, relations);
+        }
+        relations.add(title + ": " + names.get(from));
+
+        String targetName = names.get(to);
+        return targetName == null ? Map.of() : Map.of(targetName, List.copyOf(relations));
+    }
+
+    private void rebuild(int node, Map<String, List<String>> changed) {
+        IntList edges = incoming.get(node);
+        if (edges.size == 0) {
+            return;
+        }
+        List<String> relations = new ArrayList<>(edges.size / 2);
+        for (int i = 0; i < edges.size; i += 2) {
+            relations.add(relationTitles.get(edges.values[i + 1]) + ": " + names.get(edges.values[i]));
+        }
+        shortcuts.set(node, relations);
+        String name = names.get(node);
+        if (name != null) {
+            changed.put(name, List.copyOf(relations));
+        }
+    }
+
+    private int intern(String id) {
+        Integer known = ids.get(id);
+        if (known != null) {
+            return known;
+        }
+        int node = externalIds.size();
+        ids.put(id, node);
+        externalIds.add(id);
+        names.add(null);
+        incoming.add(new IntList());
+        outgoing.add(new IntList());
+        shortcuts.add(null);
+        return node;
+    }
+
+    private static final class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.artyom.kafkapart1.ardis;
+
+/*
+    one change of a project's relationship graph, keyed by projectId on the topic
+
+    NODE   ---> id, nodeType, title          (a repeated id renames the node)
+    EDGE   ---> source, target, title
+    STATUS ---> status
+
+    MALFORMED stands in for a payload that is not a delta, so one bad record is skipped instead of failing the receiver
+ */
+public record RelationDelta(
+    String projectId,
+    Type type,
+    String id,
+    String nodeType,
+    String title,
+    String source,
+    String target,
+    ProcessStatus status
+) {
+
+    public static final RelationDelta MALFORMED = new RelationDelta(null, null, null, null, null, null, null, null);
+
+    public enum Type {
+        NODE,
+        EDGE,
+        STATUS
+    }
+
+    public static RelationDelta node(String projectId, String id, String nodeType, String title) {
+        return new RelationDelta(projectId, Type.NODE, id, nodeType, title, null, null, null);
+    }
+
+    public static RelationDelta edge(String projectId, String source, String target, String title) {
+        return new RelationDelta(projectId, Type.EDGE, null, null, title, source, target, null);
+    }
+
+    public static RelationDelta status(String projectId, ProcessStatus status) {
+        return new RelationDelta(projectId, Type.STATUS, null, null, null, null, null, status);
+    }
+}
@@ -0,0 +1,28 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class RelationDeltaDeserializer implements Deserializer<RelationDelta> {
+
+    private static final Gson GSON = new Gson();
+
+    /*
+        null stays a tombstone, anything that does not parse becomes RelationDelta.MALFORMED
+     */
+    @Override
+    public RelationDelta deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            var delta = GSON.fromJson(new String(data, StandardCharsets.UTF_8), RelationDelta.class);
+            return delta == null ? RelationDelta.MALFORMED : delta;
+        } catch (JsonParseException e) {
+            return RelationDelta.MALFORMED;
+        }
+    }
+}
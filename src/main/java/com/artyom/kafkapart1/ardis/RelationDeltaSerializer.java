@@ -0,0 +1,16 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import org.apache.kafka.common.serialization.Serializer;
+
+public class RelationDeltaSerializer implements Serializer<RelationDelta> {
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public byte[] serialize(String topic, RelationDelta data) {
+        return data == null ? null : GSON.toJson(data).getBytes(StandardCharsets.UTF_8);
+    }
+}
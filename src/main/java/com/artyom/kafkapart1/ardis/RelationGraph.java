@@ -0,0 +1,228 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+/*
+    relationship data of an explore response as an int graph
+
+    node ids and relation titles are interned to ints once, incoming edges are stored in CSR form:
+
+        target t ---> edges start(t) .. end(t) - 1 ---> source(e), relation(e)
+
+    edges keep the order of the payload inside one target, declared nodes keep their payload order.
+    ids that only appear in edges are interned as well and have a null name.
+    immutable once built, build it once per payload and pass it to every extraction
+ */
+public final class RelationGraph {
+
+    private final Map<String, Integer> nodeIds;
+    private final String[] ids;
+    private final String[] names;
+    private final int[] declared;
+    private final int[] offsets;
+    private final int[] sources;
+    private final int[] relations;
+    private final String[] relationTitles;
+
+    private RelationGraph(Map<String, Integer> nodeIds, String[] ids, String[] names, int[] declared, int[] offsets,
+                          int[] sources, int[] relations, String[] relationTitles) {
+        this.nodeIds = nodeIds;
+        this.ids = ids;
+        this.names = names;
+        this.declared = declared;
+        this.offsets = offsets;
+        this.sources = sources;
+        this.relations = relations;
+        this.relationTitles = relationTitles;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /*
+        { "nodes": [ { "id", "title", "nodeType" } ], "edges": [ { "source", "target", "title" } ] }
+     */
+    public static RelationGraph of(JsonObject data) {
+        var builder = builder();
+        data.getAsJsonArray("nodes").forEach(n -> {
+            JsonObject node = n.getAsJsonObject();
+            builder.node(node.get("id").getAsString(), node.get("nodeType").getAsString(),
+                         node.get("title").getAsString());
+        });
+        data.getAsJsonArray("edges").forEach(e -> {
+            JsonObject edge = e.getAsJsonObject();
+            builder.edge(edge.get("source").getAsString(), edge.get("target").getAsString(),
+                         edge.get("title").getAsString());
+        });
+        return builder.build();
+    }
+
+    public static RelationGraph of(ExploreResponse exploreResponse) {
+        CommonSection relationship = (CommonSection) exploreResponse.getAnalytics().get("relationship");
+        return of(relationship.getData());
+    }
+
+    /*
+        number of nodes declared in the payload, node(i) walks them in payload order
+     */
+    public int nodeCount() {
+        return declared.length;
+    }
+
+    public int node(int index) {
+        return declared[index];
+    }
+
+    /*
+        declared nodes plus ids that only appear in edges
+     */
+    public int size() {
+        return ids.length;
+    }
+
+    public int edgeCount() {
+        return sources.length;
+    }
+
+    /*
+        interned id of a node, -1 when the payload does not mention it
+     */
+    public int id(String externalId) {
+        return nodeIds.getOrDefault(externalId, -1);
+    }
+
+    public String externalId(int node) {
+        return ids[node];
+    }
+
+    /*
+        "nodeType: title", null for ids without a node entry
+     */
+    public String name(int node) {
+        return names[node];
+    }
+
+    public boolean hasIncoming(int node) {
+        return offsets[node] != offsets[node + 1];
+    }
+
+    public int start(int node) {
+        return offsets[node];
+    }
+
+    public int end(int node) {
+        return offsets[node + 1];
+    }
+
+    public int source(int edge) {
+        return sources[edge];
+    }
+
+    public int relationId(int edge) {
+        return relations[edge];
+    }
+
+    public String relation(int edge) {
+        return relationTitles[relations[edge]];
+    }
+
+    public static final class Builder {
+        private final Map<String, Integer> nodeIds = new HashMap<>();
+        private final Map<String, Integer> relationIds = new HashMap<>();
+        private String[] ids = new String[16];
+        private String[] names = new String[16];
+        private String[] relationTitles = new String[16];
+        private int[] declared = new int[16];
+        private int[] edgeSources = new int[16];
+        private int[] edgeTargets = new int[16];
+        private int[] edgeRelations = new int[16];
+        private int nodes;
+        private int declaredNodes;
+        private int edges;
+
+        private Builder() {
+        }
+
+        /*
+            a repeated id keeps its first position and takes the latest name
+         */
+        public Builder node(String id, String nodeType, String title) {
+            return named(id, nodeType + ": " + title);
+        }
+
+        Builder named(String id, String name) {
+            int node = intern(id);
+            if (names[node] == null) {
+                if (declaredNodes == declared.length) {
+                    declared = Arrays.copyOf(declared, declaredNodes * 2);
+                }
+                declared[declaredNodes++] = node;
+            }
+            names[node] = name;
+            return this;
+        }
+
+        public Builder edge(String source, String target, String title) {
+            if (edges == edgeSources.length) {
+                edgeSources = Arrays.copyOf(edgeSources, edges * 2);
+                edgeTargets = Arrays.copyOf(edgeTargets, edges * 2);
+                edgeRelations = Arrays.copyOf(edgeRelations, edges * 2);
+            }
+            edgeSources[edges] = intern(source);
+            edgeTargets[edges] = intern(target);
+            edgeRelations[edges] = relationIds.computeIfAbsent(title, t -> {
+                int relation = relationIds.size();
+                if (relation == relationTitles.length) {
+                    relationTitles = Arrays.copyOf(relationTitles, relation * 2);
+                }
+                relationTitles[relation] = t;
+                return relation;
+            });
+            edges++;
+            return this;
+        }
+
+        /*
+            counting sort of the edges by target, stable so the payload order survives
+         */
+        public RelationGraph build() {
+            int[] offsets = new int[nodes + 1];
+            for (int e = 0; e < edges; e++) {
+                offsets[edgeTargets[e] + 1]++;
+            }
+            for (int n = 0; n < nodes; n++) {
+                offsets[n + 1] += offsets[n];
+            }
+            int[] next = Arrays.copyOf(offsets, nodes);
+            int[] sources = new int[edges];
+            int[] relations = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                int slot = next[edgeTargets[e]]++;
+                sources[slot] = edgeSources[e];
+                relations[slot] = edgeRelations[e];
+            }
+            return new RelationGraph(Map.copyOf(nodeIds), Arrays.copyOf(ids, nodes), Arrays.copyOf(names, nodes),
+                                     Arrays.copyOf(declared, declaredNodes), offsets, sources, relations,
+                                     Arrays.copyOf(relationTitles, relationIds.size()));
+        }
+
+        private int intern(String id) {
+            Integer known = nodeIds.get(id);
+            if (known != null) {
+                return known;
+            }
+            if (nodes == ids.length) {
+                ids = Arrays.copyOf(ids, nodes * 2);
+                names = Arrays.copyOf(names, nodes * 2);
+            }
+            ids[nodes] = id;
+            nodeIds.put(id, nodes);
+            return nodes++;
+        }
+    }
+}
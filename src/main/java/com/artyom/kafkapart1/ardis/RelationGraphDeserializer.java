@@ -0,0 +1,11 @@
+package com.artyom.kafkapart1.ardis;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class RelationGraphDeserializer implements Deserializer<RelationGraph> {
+
+    @Override
+    public RelationGraph deserialize(String topic, byte[] data) {
+        return data == null ? null : RelationGraphReader.read(data);
+    }
+}
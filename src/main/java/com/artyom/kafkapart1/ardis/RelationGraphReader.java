@@ -0,0 +1,121 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+/*
+    relationship payload straight into a RelationGraph, without a JsonObject in between
+
+    { "nodes": [ { "id", "title", "nodeType" } ], "edges": [ { "source", "target", "title" } ] }
+
+    tokens are pulled one at a time, so only the graph arrays and the current field are on the heap.
+    "nodes" and "edges" may come in any order, unknown fields are skipped
+ */
+public final class RelationGraphReader {
+
+    private RelationGraphReader() {
+    }
+
+    public static RelationGraph read(byte[] payload) {
+        return read(new ByteArrayInputStream(payload));
+    }
+
+    public static RelationGraph read(InputStream payload) {
+        return read(new InputStreamReader(payload, StandardCharsets.UTF_8));
+    }
+
+    public static RelationGraph read(Reader payload) {
+        try (var reader = new JsonReader(payload)) {
+            var builder = RelationGraph.builder();
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "nodes" -> readArray(reader, builder, RelationGraphReader::readNode);
+                    case "edges" -> readArray(reader, builder, RelationGraphReader::readEdge);
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+            return builder.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void readArray(JsonReader reader, RelationGraph.Builder builder, Element element) throws IOException {
+        reader.beginArray();
+        while (reader.hasNext()) {
+            element.read(reader, builder);
+        }
+        reader.endArray();
+    }
+
+    private static void readNode(JsonReader reader, RelationGraph.Builder builder) throws IOException {
+        String id = null;
+        String title = null;
+        String nodeType = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "id" -> id = string(reader);
+                case "title" -> title = string(reader);
+                case "nodeType" -> nodeType = string(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        builder.node(required(id, "id", reader), required(nodeType, "nodeType", reader),
+                     required(title, "title", reader));
+    }
+
+    private static void readEdge(JsonReader reader, RelationGraph.Builder builder) throws IOException {
+        String source = null;
+        String target = null;
+        String title = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "source" -> source = string(reader);
+                case "target" -> target = string(reader);
+                case "title" -> title = string(reader);
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+        builder.edge(required(source, "source", reader), required(target, "target", reader),
+                     required(title, "title", reader));
+    }
+
+    /*
+        same values JsonElement.getAsString() accepts: strings, numbers and booleans
+     */
+    private static String string(JsonReader reader) throws IOException {
+        JsonToken token = reader.peek();
+        return switch (token) {
+            case STRING, NUMBER -> reader.nextString();
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            default -> throw new JsonParseException("expected a string but was " + token + " at " + reader.getPath());
+        };
+    }
+
+    private static String required(String value, String field, JsonReader reader) {
+        if (value == null) {
+            throw new JsonParseException("missing \"" + field + "\" before " + reader.getPath());
+        }
+        return value;
+    }
+
+    @FunctionalInterface
+    private interface Element {
+        void read(JsonReader reader, RelationGraph.Builder builder) throws IOException;
+    }
+}
@@ -0,0 +1,83 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    relationship graphs of running explorations, fed by deltas from a topic keyed by projectId
+
+    relation-deltas ---> ProjectGraph per projectId ---> RelationUpdate (affected shortcuts only)
+
+    the graphs live in memory only, so every instance reads the topic from the beginning under its own
+    group id and never commits. a null value (tombstone) drops the project, a record that is not a delta is
+    logged and skipped
+ */
+public class RelationGraphUpdater {
+    private static final Logger log = LoggerFactory.getLogger(RelationGraphUpdater.class);
+
+    private final Map<String, ProjectGraph> projects = new ConcurrentHashMap<>();
+
+    public static ReceiverOptions<String, RelationDelta> receiverOptions(Map<String, Object> consumerConfig,
+                                                                         String topic) {
+        var config = new HashMap<>(consumerConfig);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG,
+                   consumerConfig.getOrDefault(ConsumerConfig.GROUP_ID_CONFIG, "relation-graph") + "-" + UUID.randomUUID());
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, RelationDeltaDeserializer.class);
+        return ReceiverOptions.<String, RelationDelta>create(config)
+            .subscription(List.of(topic));
+    }
+
+    public Flux<RelationUpdate> run(KafkaReceiver<String, RelationDelta> receiver) {
+        return receiver.receive()
+            .<RelationUpdate>handle((record, sink) -> {
+                var update = apply(record);
+                if (update != null) {
+                    sink.next(update);
+                }
+            });
+    }
+
+    public Optional<RelationSnapshot> snapshot(String projectId) {
+        return Optional.ofNullable(projects.get(projectId)).map(ProjectGraph::snapshot);
+    }
+
+    public Optional<ProjectGraph> project(String projectId) {
+        return Optional.ofNullable(projects.get(projectId));
+    }
+
+    RelationUpdate apply(ConsumerRecord<String, RelationDelta> record) {
+        var delta = record.value();
+        if (delta == null) {
+            if (record.key() != null && projects.remove(record.key()) != null) {
+                log.debug("project {} dropped", record.key());
+            }
+            return null;
+        }
+        if (delta == RelationDelta.MALFORMED) {
+            log.warn("skipping malformed delta at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return null;
+        }
+        var projectId = delta.projectId() != null ? delta.projectId() : record.key();
+        if (projectId == null || delta.type() == null) {
+            log.warn("skipping delta without project or type at {}-{}@{}", record.topic(), record.partition(), record.offset());
+            return null;
+        }
+        return projects.computeIfAbsent(projectId, ProjectGraph::new).apply(delta);
+    }
+}
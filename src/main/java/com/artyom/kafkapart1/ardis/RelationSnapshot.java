@@ -0,0 +1,15 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    everything known about a project so far, partial while status is RUNNING
+ */
+public record RelationSnapshot(
+    String projectId,
+    ProcessStatus status,
+    long version,
+    Map<String, List<String>> shortcuts
+) {
+}
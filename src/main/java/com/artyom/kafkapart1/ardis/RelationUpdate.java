@@ -0,0 +1,16 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.List;
+import java.util.Map;
+
+/*
+    what one delta changed: the shortcuts of the affected nodes only (same shape as
+    Controller.extractRelationShortcut), empty for a status change
+ */
+public record RelationUpdate(
+    String projectId,
+    ProcessStatus status,
+    long version,
+    Map<String, List<String>> shortcuts
+) {
+}
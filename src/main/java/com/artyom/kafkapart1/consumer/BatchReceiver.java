@@ -0,0 +1,82 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/*
+    groups records into batches bounded by size or time and hands every batch to one handler call.
+    once the handler completes only the highest offset per partition is acknowledged / committed,
+    which covers every earlier offset of that partition
+ */
+public class BatchReceiver<K, V> {
+
+    public enum AckMode {
+        ACKNOWLEDGE, // committed by the receiver's commit interval / batch size
+        COMMIT       // committed before the next batch is handed over
+    }
+
+    private final KafkaReceiver<K, V> receiver;
+    private final int maxBatchSize;
+    private final Duration maxWait;
+    private final AckMode ackMode;
+
+    public BatchReceiver(KafkaReceiver<K, V> receiver, int maxBatchSize, Duration maxWait, AckMode ackMode) {
+        this.receiver = receiver;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWait = maxWait;
+        this.ackMode = ackMode;
+    }
+
+    /*
+        emits the size of every batch once it is handled and acknowledged
+     */
+    public Flux<Integer> receive(Function<List<ReceiverRecord<K, V>>, Mono<Void>> handler) {
+        return batches(receiver.receive())
+            .concatMap(batch -> handler.apply(batch)
+                .then(acknowledge(batch))
+                .thenReturn(batch.size()));
+    }
+
+    Flux<List<ReceiverRecord<K, V>>> batches(Flux<ReceiverRecord<K, V>> records) {
+        return records.bufferTimeout(maxBatchSize, maxWait, true);
+    }
+
+    Mono<Void> acknowledge(List<ReceiverRecord<K, V>> batch) {
+        return Mono.defer(() -> {
+            var highest = highestPerPartition(batch);
+            if (ackMode == AckMode.ACKNOWLEDGE) {
+                highest.forEach(ReceiverOffset::acknowledge);
+                return Mono.empty();
+            }
+            ReceiverOffset last = null;
+            for (var offset : highest) {
+                if (last != null) {
+                    last.acknowledge();
+                }
+                last = offset;
+            }
+            return last == null ? Mono.empty() : last.commit();
+        });
+    }
+
+    static Collection<ReceiverOffset> highestPerPartition(List<? extends ReceiverRecord<?, ?>> batch) {
+        Map<TopicPartition, ReceiverOffset> highest = new LinkedHashMap<>();
+        for (var record : batch) {
+            var offset = record.receiverOffset();
+            highest.merge(offset.topicPartition(), offset,
+                          (current, candidate) -> candidate.offset() > current.offset() ? candidate : current);
+        }
+        return highest.values();
+    }
+}
@@ -0,0 +1,84 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.artyom.kafkapart1.metrics.ReceiverMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+
+/*
+    commits OffsetTracker watermarks through the receiver's own consumer (on its event loop thread),
+    timed as kafka.receiver.commit when ReceiverMetrics are given
+ */
+public class OffsetCommitter {
+    private static final Logger log = LoggerFactory.getLogger(OffsetCommitter.class);
+
+    private static final Duration FINAL_COMMIT_TIMEOUT = Duration.ofSeconds(5);
+
+    private final KafkaReceiver<?, ?> receiver;
+    private final OffsetTracker tracker;
+    private final ReceiverMetrics metrics;
+
+    public OffsetCommitter(KafkaReceiver<?, ?> receiver, OffsetTracker tracker) {
+        this(receiver, tracker, null);
+    }
+
+    public OffsetCommitter(KafkaReceiver<?, ?> receiver, OffsetTracker tracker, ReceiverMetrics metrics) {
+        this.receiver = receiver;
+        this.tracker = tracker;
+        this.metrics = metrics;
+    }
+
+    public Disposable schedule(Duration interval) {
+        return Flux.interval(interval)
+            .concatMap(t -> commit())
+            .subscribe();
+    }
+
+    public Mono<Void> commit() {
+        return Mono.defer(() -> {
+            var offsets = tracker.committable();
+            if (offsets.isEmpty()) {
+                return Mono.empty();
+            }
+            var commit = receiver.doOnConsumer(consumer -> {
+                    consumer.commitSync(offsets);
+                    return offsets;
+                })
+                .then();
+            return (metrics == null ? commit : metrics.timedCommit(commit))
+                .doOnSuccess(v -> tracker.committed(offsets))
+                .doOnError(e -> log.warn("commit of {} failed", offsets, e))
+                .onErrorResume(e -> Mono.empty());
+        });
+    }
+
+    /*
+        commits the watermark once more when the pipeline stops:
+        complete / error ---> after the last record
+        cancel           ---> before the cancel reaches the receiver, its consumer is still open then
+     */
+    public <T> Flux<T> commitOnTermination(Flux<T> records) {
+        return records
+            .concatWith(commit().then(Mono.empty()))
+            .onErrorResume(e -> commit().then(Mono.error(e)))
+            .doOnCancel(this::commitBeforeCancel);
+    }
+
+    private void commitBeforeCancel() {
+        try {
+            commit().toFuture().get(FINAL_COMMIT_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            log.warn("final commit of {} did not finish", tracker.committable(), e);
+        }
+    }
+}
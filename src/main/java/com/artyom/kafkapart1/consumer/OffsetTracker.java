@@ -0,0 +1,188 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import reactor.kafka.receiver.ReceiverPartition;
+
+/*
+    per partition watermark for parallel processing:
+    track() is called in poll order, complete() in whatever order processing finishes.
+    the committable offset only moves over records that are all completed, so a commit never
+    skips a record that is still in flight
+ */
+public class OffsetTracker {
+
+    private final Map<TopicPartition, PartitionOffsets> partitions = new ConcurrentHashMap<>();
+    private final Set<TopicPartition> fenced = ConcurrentHashMap.newKeySet();
+
+    public void track(TopicPartition partition, long offset) {
+        if (fenced.contains(partition)) {
+            return;
+        }
+        partitions.computeIfAbsent(partition, p -> new PartitionOffsets()).track(offset);
+    }
+
+    public void complete(TopicPartition partition, long offset) {
+        var offsets = partitions.get(partition);
+        if (offsets != null) {
+            offsets.complete(offset);
+        }
+    }
+
+    /*
+        next offsets to commit for partitions whose watermark moved past the last commit
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        var result = new HashMap<TopicPartition, OffsetAndMetadata>();
+        partitions.forEach((partition, offsets) -> {
+            long next = offsets.committable();
+            if (next >= 0) {
+                result.put(partition, new OffsetAndMetadata(next));
+            }
+        });
+        return result;
+    }
+
+    public void committed(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        offsets.forEach((partition, offset) -> {
+            var state = partitions.get(partition);
+            if (state != null) {
+                state.committed(offset.offset());
+            }
+        });
+    }
+
+    /*
+        records of the partition not yet covered by the watermark
+     */
+    public long pending(TopicPartition partition) {
+        var offsets = partitions.get(partition);
+        return offsets == null ? 0 : offsets.pending();
+    }
+
+    public void remove(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+
+    public void onRevoke(Collection<ReceiverPartition> revoked) {
+        revoked.forEach(p -> partitions.remove(p.topicPartition()));
+    }
+
+    /*
+        remove and ignore records of the partitions that are still in the pipeline,
+        so nothing is committed for a partition this member no longer owns
+     */
+    public void revoke(Collection<TopicPartition> revoked) {
+        fenced.addAll(revoked);
+        remove(revoked);
+    }
+
+    public void assign(Collection<TopicPartition> assigned) {
+        fenced.removeAll(assigned);
+    }
+
+    /*
+        completion bits in a ring keyed by offset - base, base being the lowest offset not yet completed.
+        track() / complete() touch one bit and never allocate, the ring only grows when the distance
+        between the oldest in-flight record and the newest tracked one exceeds its capacity.
+        offsets skipped in poll order (transaction markers, compaction) are marked complete on track(),
+        or jumped over when nothing of the partition is in flight
+     */
+    static class PartitionOffsets {
+        private static final int INITIAL_BITS = 1 << 16;
+
+        private long[] words = new long[INITIAL_BITS >>> 6];
+        private long mask = INITIAL_BITS - 1;
+        private long base = -1;
+        private long highestTracked = -1;
+        private long committed = -1;
+
+        synchronized void track(long offset) {
+            if (base < 0) {
+                base = offset;
+                highestTracked = offset - 1;
+                committed = offset;
+            }
+            if (offset <= highestTracked) {
+                return;
+            }
+            if (base > highestTracked) {
+                base = offset; // nothing in flight, jump over the gap
+            } else {
+                ensureCapacity(offset);
+                for (long gap = highestTracked + 1; gap < offset; gap++) {
+                    set(gap);
+                }
+            }
+            highestTracked = offset;
+        }
+
+        synchronized void complete(long offset) {
+            if (offset < base || offset > highestTracked) {
+                return;
+            }
+            set(offset);
+            if (offset == base) {
+                advance();
+            }
+        }
+
+        synchronized long committable() {
+            return base > committed ? base : -1;
+        }
+
+        synchronized void committed(long offset) {
+            committed = Math.max(committed, offset);
+        }
+
+        synchronized long pending() {
+            return base < 0 ? 0 : highestTracked + 1 - base;
+        }
+
+        private void advance() {
+            while (base <= highestTracked) {
+                int word = (int) ((base & mask) >>> 6);
+                if ((base & 63) == 0 && base + 63 <= highestTracked && words[word] == -1L) {
+                    words[word] = 0;
+                    base += 64;
+                    continue;
+                }
+                long bit = 1L << (base & 63);
+                if ((words[word] & bit) == 0) {
+                    return;
+                }
+                words[word] &= ~bit;
+                base++;
+            }
+        }
+
+        private void set(long offset) {
+            words[(int) ((offset & mask) >>> 6)] |= 1L << (offset & 63);
+        }
+
+        private void ensureCapacity(long offset) {
+            long capacity = mask + 1;
+            if (offset - base < capacity) {
+                return;
+            }
+            while (offset - base >= capacity) {
+                capacity <<= 1;
+            }
+            long[] oldWords = words;
+            long oldMask = mask;
+            words = new long[(int) (capacity >>> 6)];
+            mask = capacity - 1;
+            for (long o = base; o <= highestTracked; o++) {
+                if ((oldWords[(int) ((o & oldMask) >>> 6)] & (1L << (o & 63))) != 0) {
+                    set(o);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.function.Function;
+
+import com.artyom.kafkapart1.metrics.ReceiverMetrics;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/*
+    one reactive chain per partition (or key bucket) instead of one chain per consumer.
+
+    records of a group are handled one after another on a worker of a bounded scheduler,
+    so order holds per partition / per key while different groups use different cores.
+    offsets are committed from the OffsetTracker watermark, never from the record that finished last:
+    every commitInterval, and once more when the flux completes, fails or is cancelled
+
+    create the receiver from RebalanceLifecycle.bind(options) with the same tracker, it commits the
+    watermark of revoked partitions before they move. tracker::onRevoke alone only forgets them.
+    with ReceiverMetrics every handler and commit is timed and records are counted per partition
+ */
+public class PartitionedProcessor<K, V> {
+    private static final int MAX_GROUPS = 1024;
+
+    public enum Grouping {
+        PARTITION,
+        KEY_HASH
+    }
+
+    private final KafkaReceiver<K, V> receiver;
+    private final OffsetTracker tracker;
+    private final Grouping grouping;
+    private final int parallelism;
+    private final Duration commitInterval;
+    private final ReceiverMetrics metrics;
+    private final OffsetCommitter committer;
+
+    public PartitionedProcessor(KafkaReceiver<K, V> receiver, OffsetTracker tracker, Grouping grouping,
+                                int parallelism, Duration commitInterval) {
+        this(receiver, tracker, grouping, parallelism, commitInterval, null);
+    }
+
+    public PartitionedProcessor(KafkaReceiver<K, V> receiver, OffsetTracker tracker, Grouping grouping,
+                                int parallelism, Duration commitInterval, ReceiverMetrics metrics) {
+        this.receiver = receiver;
+        this.tracker = tracker;
+        this.grouping = grouping;
+        this.parallelism = parallelism;
+        this.commitInterval = commitInterval;
+        this.metrics = metrics;
+        this.committer = new OffsetCommitter(receiver, tracker, metrics);
+    }
+
+    /*
+        emits every record once its handler completed
+     */
+    public Flux<ReceiverRecord<K, V>> process(Function<ReceiverRecord<K, V>, Mono<Void>> handler) {
+        return Flux.defer(() -> {
+            Scheduler workers = Schedulers.newParallel("partition-worker", parallelism);
+            Disposable committer = this.committer.schedule(commitInterval);
+            var timed = metrics == null ? handler : metrics.timed(handler);
+
+            return receiver.receive()
+                .doOnNext(r -> tracker.track(r.receiverOffset().topicPartition(), r.offset()))
+                .groupBy(this::groupKey)
+                .flatMap(group -> group
+                    .publishOn(workers)
+                    .concatMap(r -> timed.apply(r)
+                        .then(Mono.fromCallable(() -> {
+                            tracker.complete(r.receiverOffset().topicPartition(), r.offset());
+                            return r;
+                        }))), MAX_GROUPS)
+                .transform(this.committer::commitOnTermination)
+                .doFinally(s -> {
+                    committer.dispose();
+                    workers.dispose();
+                });
+        });
+    }
+
+    public Mono<Void> commit() {
+        return committer.commit();
+    }
+
+    private Object groupKey(ReceiverRecord<K, V> record) {
+        return switch (grouping) {
+            case PARTITION -> record.receiverOffset().topicPartition();
+            case KEY_HASH -> Math.floorMod(Objects.hashCode(record.key()), parallelism * 4);
+        };
+    }
+}
@@ -0,0 +1,133 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+
+/*
+    rebalance handling for the OffsetTracker based processors (PartitionedProcessor, VirtualThreadRunner, ...)
+
+    revoke ---> wait until the in-flight records of the revoked partitions are completed, at most drainTimeout
+           ---> commit their watermark on the consumer (the listener runs inside poll, on its thread)
+           ---> stop owning and fence the partitions in the tracker, late completions are ignored
+    assign ---> warm-up hooks for the new partitions, records are handed out after they return
+
+    with CooperativeStickyAssignor only the moved partitions are revoked, the others keep processing.
+    receivers that acknowledge() instead of tracking can use ReceiverOptions.maxDelayRebalance
+ */
+public class RebalanceLifecycle {
+    private static final Logger log = LoggerFactory.getLogger(RebalanceLifecycle.class);
+
+    private static final long DRAIN_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final OffsetTracker tracker;
+    private final Duration drainTimeout;
+    private final List<Consumer<Collection<TopicPartition>>> warmUps = new CopyOnWriteArrayList<>();
+    private final Set<TopicPartition> owned = ConcurrentHashMap.newKeySet();
+
+    private volatile org.apache.kafka.clients.consumer.Consumer<?, ?> consumer;
+
+    public RebalanceLifecycle(OffsetTracker tracker, Duration drainTimeout) {
+        this.tracker = tracker;
+        this.drainTimeout = drainTimeout;
+    }
+
+    public RebalanceLifecycle onAssign(Consumer<Collection<TopicPartition>> warmUp) {
+        warmUps.add(warmUp);
+        return this;
+    }
+
+    /*
+        a consumer listener already set on the options (KafkaMetrics.bind) keeps being called
+     */
+    public <K, V> ReceiverOptions<K, V> bind(ReceiverOptions<K, V> options) {
+        var delegate = options.consumerListener();
+        return options
+            .consumerListener(new ReceiverOptions.ConsumerListener() {
+                @Override
+                public void consumerAdded(String id, org.apache.kafka.clients.consumer.Consumer<?, ?> added) {
+                    consumer = added;
+                    if (delegate != null) {
+                        delegate.consumerAdded(id, added);
+                    }
+                }
+
+                @Override
+                public void consumerRemoved(String id, org.apache.kafka.clients.consumer.Consumer<?, ?> removed) {
+                    consumer = null;
+                    if (delegate != null) {
+                        delegate.consumerRemoved(id, removed);
+                    }
+                }
+            })
+            .addAssignListener(this::assigned)
+            .addRevokeListener(this::revoked);
+    }
+
+    /*
+        handlers can skip records of partitions revoked while they were queued
+     */
+    public boolean owns(TopicPartition partition) {
+        return owned.contains(partition);
+    }
+
+    void assigned(Collection<ReceiverPartition> partitions) {
+        var assigned = partitions.stream().map(ReceiverPartition::topicPartition).toList();
+        tracker.assign(assigned);
+        owned.addAll(assigned);
+        long start = System.nanoTime();
+        warmUps.forEach(warmUp -> warmUp.accept(assigned));
+        log.info("assigned {}, warm-up took {} ms", assigned, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    void revoked(Collection<ReceiverPartition> partitions) {
+        var revoked = partitions.stream().map(ReceiverPartition::topicPartition).toList();
+        long start = System.nanoTime();
+        boolean drained = drain(revoked, start + drainTimeout.toNanos());
+        var offsets = committable(revoked);
+        var current = consumer;
+        if (!offsets.isEmpty() && current != null) {
+            try {
+                current.commitSync(offsets);
+                tracker.committed(offsets);
+            } catch (RuntimeException e) {
+                log.warn("commit of revoked {} failed", offsets, e);
+            }
+        }
+        // owned until here: records queued before the revoke are still handled by the drain, not skipped
+        owned.removeAll(revoked);
+        tracker.revoke(revoked);
+        log.info("revoked {} {} in {} ms, committed {}", revoked, drained ? "drained" : "not drained",
+                 TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), offsets);
+    }
+
+    private boolean drain(Collection<TopicPartition> revoked, long deadline) {
+        while (revoked.stream().anyMatch(p -> tracker.pending(p) > 0)) {
+            if (System.nanoTime() >= deadline) {
+                return false;
+            }
+            LockSupport.parkNanos(DRAIN_POLL_NANOS);
+        }
+        return true;
+    }
+
+    private Map<TopicPartition, OffsetAndMetadata> committable(Collection<TopicPartition> revoked) {
+        var offsets = tracker.committable();
+        offsets.keySet().retainAll(revoked);
+        return offsets;
+    }
+}
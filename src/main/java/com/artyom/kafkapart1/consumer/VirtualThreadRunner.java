@@ -0,0 +1,98 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/*
+    thread-per-record for blocking handlers (jdbc, http clients).
+
+    every handler call runs on its own virtual thread, at most maxConcurrency at a time.
+    when all slots are busy demand stops and reactor kafka pauses the partitions,
+    the poll loop keeps running so max.poll.interval.ms is never hit.
+    offsets are committed in offset order through the OffsetTracker watermark,
+    every commitInterval and once more when the flux completes, fails or is cancelled
+
+    create the receiver from RebalanceLifecycle.bind(options) with the same tracker, it commits the
+    watermark of revoked partitions before they move. tracker::onRevoke alone only forgets them
+ */
+public class VirtualThreadRunner<K, V> {
+
+    @FunctionalInterface
+    public interface RecordHandler<K, V> {
+        void handle(ReceiverRecord<K, V> record) throws Exception;
+    }
+
+    public enum Ordering {
+        NONE, // records of the same key may run concurrently
+        KEY   // records of the same key run one after another
+    }
+
+    private final KafkaReceiver<K, V> receiver;
+    private final OffsetTracker tracker;
+    private final OffsetCommitter committer;
+    private final Ordering ordering;
+    private final int maxConcurrency;
+    private final Duration commitInterval;
+
+    public VirtualThreadRunner(KafkaReceiver<K, V> receiver, OffsetTracker tracker, Ordering ordering,
+                               int maxConcurrency, Duration commitInterval) {
+        this.receiver = receiver;
+        this.tracker = tracker;
+        this.committer = new OffsetCommitter(receiver, tracker);
+        this.ordering = ordering;
+        this.maxConcurrency = maxConcurrency;
+        this.commitInterval = commitInterval;
+    }
+
+    /*
+        emits every record once its handler returned
+     */
+    public Flux<ReceiverRecord<K, V>> run(RecordHandler<K, V> handler) {
+        return Flux.defer(() -> {
+            var executor = Executors.newVirtualThreadPerTaskExecutor();
+            Scheduler virtualThreads = Schedulers.fromExecutorService(executor, "virtual-record-handler");
+            Disposable commits = committer.schedule(commitInterval);
+
+            var records = receiver.receive()
+                .doOnNext(r -> tracker.track(r.receiverOffset().topicPartition(), r.offset()));
+
+            var processed = switch (ordering) {
+                case NONE -> records.flatMap(r -> handle(r, handler, virtualThreads), maxConcurrency, 1);
+                case KEY -> records
+                    .groupBy(r -> Math.floorMod(Objects.hashCode(r.key()), maxConcurrency))
+                    .flatMap(group -> group.concatMap(r -> handle(r, handler, virtualThreads)), maxConcurrency);
+            };
+
+            return processed
+                .transform(committer::commitOnTermination)
+                .doFinally(s -> {
+                    commits.dispose();
+                    virtualThreads.dispose();
+                    executor.shutdown();
+                });
+        });
+    }
+
+    public Mono<Void> commit() {
+        return committer.commit();
+    }
+
+    private Mono<ReceiverRecord<K, V>> handle(ReceiverRecord<K, V> record, RecordHandler<K, V> handler,
+                                              Scheduler virtualThreads) {
+        return Mono.fromCallable(() -> {
+                handler.handle(record);
+                tracker.complete(record.receiverOffset().topicPartition(), record.offset());
+                return record;
+            })
+            .subscribeOn(virtualThreads);
+    }
+}
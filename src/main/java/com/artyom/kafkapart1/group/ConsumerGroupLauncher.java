@@ -0,0 +1,189 @@
+package com.artyom.kafkapart1.group;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.MemberToRemove;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.admin.RemoveMembersFromConsumerGroupOptions;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    N members of one consumer group in one JVM, instead of one main() per member (sec05 / sec06 KafkaConsumerGroup)
+
+    member i ---> group.instance.id <prefix>-i, its own KafkaConsumer event loop
+                  and its own single thread scheduler for the records it hands out
+    scaleTo adds members with ids never used before or stops the newest ones.
+    a stopped static member would keep its partitions until session.timeout.ms,
+    so it is also removed from the group through the Admin client to rebalance right away.
+    that removal is asynchronous, a reused id could join before it lands and be removed in its place.
+    a member whose pipeline fails or completes is dropped the same way
+ */
+public class ConsumerGroupLauncher<K, V> implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(ConsumerGroupLauncher.class);
+
+    private final Map<String, Object> consumerConfig;
+    private final Collection<String> topics;
+    private final String instancePrefix;
+    private final Function<KafkaReceiver<K, V>, Publisher<?>> pipeline;
+    private final String groupId;
+    private final Admin admin;
+    private final List<Member> members = new ArrayList<>();
+    private int nextId = 1;
+
+    public ConsumerGroupLauncher(Map<String, Object> consumerConfig, Collection<String> topics, String instancePrefix,
+                                 Function<KafkaReceiver<K, V>, Publisher<?>> pipeline) {
+        this.consumerConfig = consumerConfig;
+        this.topics = topics;
+        this.instancePrefix = instancePrefix;
+        this.pipeline = pipeline;
+        this.groupId = (String) consumerConfig.get(ConsumerConfig.GROUP_ID_CONFIG);
+        this.admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                                         consumerConfig.get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)));
+    }
+
+    public synchronized int size() {
+        return members.size();
+    }
+
+    public synchronized Map<String, Set<TopicPartition>> assignments() {
+        return members.stream().collect(Collectors.toMap(Member::instanceId, m -> Set.copyOf(m.assigned)));
+    }
+
+    public synchronized void scaleTo(int count) {
+        for (int missing = count - members.size(); missing > 0; missing--) {
+            start(instancePrefix + "-" + nextId++);
+        }
+        var stopped = new ArrayList<Member>();
+        while (members.size() > count) {
+            var member = members.removeLast();
+            member.stop();
+            stopped.add(member);
+        }
+        leave(stopped);
+        log.info("group {} runs {} members", groupId, members.size());
+    }
+
+    /*
+        lag summed over every partition of the subscribed topics
+     */
+    public Mono<Long> lag() {
+        return Mono.fromCallable(() -> {
+                var committed = admin.listConsumerGroupOffsets(groupId).partitionsToOffsetAndMetadata().get();
+                var partitions = admin.describeTopics(topics).allTopicNames().get().values().stream()
+                    .flatMap(d -> d.partitions().stream().map(p -> new TopicPartition(d.name(), p.partition())))
+                    .collect(Collectors.toMap(Function.identity(), tp -> OffsetSpec.latest()));
+                var ends = admin.listOffsets(partitions).all().get();
+                long lag = 0;
+                for (var entry : ends.entrySet()) {
+                    var offset = committed.get(entry.getKey());
+                    lag += entry.getValue().offset() - (offset == null ? 0 : offset.offset());
+                }
+                return lag;
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Disposable autoscale(Duration interval, ScalingPolicy policy) {
+        return Flux.interval(interval)
+            .concatMap(t -> lag().onErrorResume(e -> {
+                log.warn("lag of {} not available", groupId, e);
+                return Mono.empty();
+            }))
+            .subscribe(lag -> {
+                int current = size();
+                int desired = policy.desired(current, lag);
+                if (desired != current) {
+                    log.info("lag {} ---> scaling {} from {} to {} members", lag, groupId, current, desired);
+                    scaleTo(desired);
+                }
+            });
+    }
+
+    @Override
+    public void close() {
+        scaleTo(0);
+        admin.close();
+    }
+
+    private void start(String instanceId) {
+        var config = new HashMap<>(consumerConfig);
+        config.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId);
+        config.put(ConsumerConfig.CLIENT_ID_CONFIG, instanceId);
+
+        var scheduler = Schedulers.newSingle(instanceId);
+        var assigned = ConcurrentHashMap.<TopicPartition>newKeySet();
+        var options = ReceiverOptions.<K, V>create(config)
+            .schedulerSupplier(() -> scheduler)
+            .addAssignListener(partitions -> partitions.forEach(p -> assigned.add(p.topicPartition())))
+            .addRevokeListener(partitions -> partitions.forEach(p -> assigned.remove(p.topicPartition())))
+            .subscription(topics);
+
+        // added before subscribing: a pipeline that ends right away still finds itself in members
+        var member = new Member(instanceId, Disposables.swap(), scheduler, assigned);
+        members.add(member);
+        member.subscription().update(Flux.from(pipeline.apply(KafkaReceiver.create(options)))
+                                         .subscribe(v -> {}, e -> {
+                                             log.error("member {} stopped", instanceId, e);
+                                             ended(member);
+                                         }, () -> ended(member)));
+    }
+
+    /*
+        a member whose pipeline failed or completed no longer consumes: it is dropped and leaves the group,
+        the next scaleTo (or autoscale tick) starts a fresh one
+     */
+    private synchronized void ended(Member member) {
+        if (members.remove(member)) {
+            member.stop();
+            leave(List.of(member));
+            log.info("group {} runs {} members after {} ended", groupId, members.size(), member.instanceId());
+        }
+    }
+
+    private void leave(List<Member> stopped) {
+        if (stopped.isEmpty()) {
+            return;
+        }
+        var toRemove = stopped.stream().map(m -> new MemberToRemove(m.instanceId())).toList();
+        admin.removeMembersFromConsumerGroup(groupId, new RemoveMembersFromConsumerGroupOptions(toRemove))
+            .all()
+            .whenComplete((v, e) -> {
+                if (e != null) {
+                    log.warn("removing {} from {} failed, partitions move after the session timeout", toRemove, groupId, e);
+                }
+            });
+    }
+
+    private record Member(String instanceId, Disposable.Swap subscription, Scheduler scheduler,
+                          Set<TopicPartition> assigned) {
+
+        void stop() {
+            subscription.dispose();
+            scheduler.dispose();
+            assigned.clear();
+        }
+    }
+}
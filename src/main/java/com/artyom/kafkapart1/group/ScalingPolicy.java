@@ -0,0 +1,25 @@
+package com.artyom.kafkapart1.group;
+
+/*
+    one member more while the group lag is above scaleUpLag, one less while it is below scaleDownLag.
+    max should not exceed the partition count, extra members stay idle
+ */
+public record ScalingPolicy(int minMembers, int maxMembers, long scaleUpLag, long scaleDownLag) {
+
+    public ScalingPolicy {
+        if (minMembers < 1 || maxMembers < minMembers || scaleDownLag > scaleUpLag) {
+            throw new IllegalArgumentException("invalid scaling policy: " + minMembers + "-" + maxMembers
+                                               + ", lag " + scaleDownLag + "-" + scaleUpLag);
+        }
+    }
+
+    public int desired(int current, long lag) {
+        if (lag > scaleUpLag) {
+            return Math.min(maxMembers, current + 1);
+        }
+        if (lag < scaleDownLag) {
+            return Math.max(minMembers, current - 1);
+        }
+        return Math.clamp(current, minMembers, maxMembers);
+    }
+}
@@ -0,0 +1,70 @@
+package com.artyom.kafkapart1.header;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+/*
+    header values without per record byte arrays
+
+    constant values ("some-client") are encoded once and the same Header instance is attached to every record,
+    keep the returned Header in a static final field.
+    numeric ids are 8 byte big endian instead of a decimal String, and are read back without allocating.
+    interned values are shared, never modify the array returned by Header.value()
+ */
+public final class HeaderCodec {
+
+    public static final String CLIENT_ID = "client-id";
+    public static final String TRACING_ID = "tracing-id";
+
+    private static final Map<String, Map<String, Header>> CONSTANTS = new ConcurrentHashMap<>();
+
+    private HeaderCodec() {
+    }
+
+    public static Header constant(String key, String value) {
+        return CONSTANTS.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+            .computeIfAbsent(value, v -> new RecordHeader(key, v.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public static Header longValue(String key, long value) {
+        var bytes = new byte[Long.BYTES];
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            bytes[i] = (byte) value;
+            value >>>= 8;
+        }
+        return new RecordHeader(key, bytes);
+    }
+
+    /*
+        value of a header written by longValue(), or missing when the header is absent or not 8 bytes
+     */
+    public static long readLong(Headers headers, String key, long missing) {
+        Header header = headers.lastHeader(key);
+        if (header == null) {
+            return missing;
+        }
+        byte[] bytes = header.value();
+        if (bytes == null || bytes.length != Long.BYTES) {
+            return missing;
+        }
+        long value = 0;
+        for (byte b : bytes) {
+            value = (value << 8) | (b & 0xFF);
+        }
+        return value;
+    }
+
+    /*
+        true when the record carries the expected header value, same instance is checked first
+     */
+    public static boolean matches(Headers headers, Header expected) {
+        Header header = headers.lastHeader(expected.key());
+        return header != null && (header == expected || Arrays.equals(header.value(), expected.value()));
+    }
+}
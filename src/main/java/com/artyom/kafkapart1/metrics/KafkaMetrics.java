@@ -0,0 +1,68 @@
+package com.artyom.kafkapart1.metrics;
+
+import java.util.List;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.springframework.stereotype.Component;
+import reactor.kafka.receiver.MicrometerConsumerListener;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.MicrometerProducerListener;
+import reactor.kafka.sender.SenderOptions;
+
+/*
+    entry point for instrumenting senders / receivers against the application's registry,
+    exposed through /actuator/metrics
+
+    bind() also bridges the kafka client metrics (kafka.producer.*, kafka.consumer.*)
+ */
+@Component
+public class KafkaMetrics {
+
+    private final MeterRegistry registry;
+
+    public KafkaMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public MeterRegistry registry() {
+        return registry;
+    }
+
+    public SenderMetrics sender(String name, int maxInFlight) {
+        return new SenderMetrics(registry, name, maxInFlight);
+    }
+
+    public ReceiverMetrics receiver(String group) {
+        return new ReceiverMetrics(registry, group);
+    }
+
+    public <K, V> SenderOptions<K, V> bind(SenderOptions<K, V> options, String name) {
+        return options.producerListener(new MicrometerProducerListener(registry, List.of(Tag.of("sender", name))));
+    }
+
+    /*
+        a consumer listener already set on the options (RebalanceLifecycle.bind) keeps being called
+     */
+    public <K, V> ReceiverOptions<K, V> bind(ReceiverOptions<K, V> options, String group) {
+        var metrics = new MicrometerConsumerListener(registry, List.of(Tag.of("group", group)));
+        var existing = options.consumerListener();
+        if (existing == null) {
+            return options.consumerListener(metrics);
+        }
+        return options.consumerListener(new ReceiverOptions.ConsumerListener() {
+            @Override
+            public void consumerAdded(String id, Consumer<?, ?> consumer) {
+                existing.consumerAdded(id, consumer);
+                metrics.consumerAdded(id, consumer);
+            }
+
+            @Override
+            public void consumerRemoved(String id, Consumer<?, ?> consumer) {
+                metrics.consumerRemoved(id, consumer);
+                existing.consumerRemoved(id, consumer);
+            }
+        });
+    }
+}
@@ -0,0 +1,74 @@
+package com.artyom.kafkapart1.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.common.TopicPartition;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/*
+    kafka.receiver.records{group, topic, partition}   per partition records/s
+    kafka.receiver.processing{group}                  handler time, percentile histogram
+    kafka.receiver.commit{group}                      commit latency
+
+    per partition lag comes from the bridged client metrics: kafka.consumer.fetch.manager.records.lag
+ */
+public class ReceiverMetrics {
+
+    private final MeterRegistry registry;
+    private final String group;
+    private final Timer processing;
+    private final Timer commit;
+    private final Map<TopicPartition, Counter> records = new ConcurrentHashMap<>();
+
+    public ReceiverMetrics(MeterRegistry registry, String group) {
+        this.registry = registry;
+        this.group = group;
+        this.processing = Timer.builder("kafka.receiver.processing")
+            .tag("group", group)
+            .publishPercentileHistogram()
+            .register(registry);
+        this.commit = Timer.builder("kafka.receiver.commit")
+            .tag("group", group)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    public <K, V> Function<ReceiverRecord<K, V>, Mono<Void>> timed(Function<ReceiverRecord<K, V>, Mono<Void>> handler) {
+        return record -> Mono.defer(() -> {
+            var sample = Timer.start(registry);
+            // before the completion goes downstream, doFinally would only run after it
+            Runnable done = () -> {
+                sample.stop(processing);
+                counter(record.receiverOffset().topicPartition()).increment();
+            };
+            return handler.apply(record)
+                .doOnTerminate(done)
+                .doOnCancel(done);
+        });
+    }
+
+    public Mono<Void> timedCommit(Mono<Void> commit) {
+        return Mono.defer(() -> {
+            var sample = Timer.start(registry);
+            return commit.doFinally(s -> sample.stop(this.commit));
+        });
+    }
+
+    private Counter counter(TopicPartition partition) {
+        var counter = records.get(partition);
+        if (counter == null) {
+            counter = records.computeIfAbsent(partition, p -> Counter.builder("kafka.receiver.records")
+                .tag("group", group)
+                .tag("topic", p.topic())
+                .tag("partition", String.valueOf(p.partition()))
+                .register(registry));
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,72 @@
+package com.artyom.kafkapart1.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    kafka.sender.records{sender, result=acked|failed}   send rate
+    kafka.sender.in.flight{sender}                      records handed to the producer and not acked yet
+    kafka.sender.max.in.flight{sender}                  the SenderOptions.maxInFlight limit to compare against
+    kafka.sender.ack.latency{sender}                    handed to the producer -> ack, percentile histogram
+ */
+public class SenderMetrics {
+
+    private final Counter acked;
+    private final Counter failed;
+    private final Timer ackLatency;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public SenderMetrics(MeterRegistry registry, String name, int maxInFlight) {
+        this.acked = Counter.builder("kafka.sender.records").tag("sender", name).tag("result", "acked").register(registry);
+        this.failed = Counter.builder("kafka.sender.records").tag("sender", name).tag("result", "failed").register(registry);
+        this.ackLatency = Timer.builder("kafka.sender.ack.latency")
+            .tag("sender", name)
+            .publishPercentileHistogram()
+            .register(registry);
+        Gauge.builder("kafka.sender.in.flight", inFlight, AtomicInteger::get).tag("sender", name).register(registry);
+        Gauge.builder("kafka.sender.max.in.flight", () -> maxInFlight).tag("sender", name).register(registry);
+    }
+
+    public <K, V, T> Flux<SenderResult<T>> send(KafkaSender<K, V> sender, Publisher<? extends SenderRecord<K, V, T>> records) {
+        return sender.send(Flux.from(records)
+                               .map(record -> {
+                                   inFlight.incrementAndGet();
+                                   return SenderRecord.create(record, new Timed<>(record.correlationMetadata(), System.nanoTime()));
+                               }))
+            .map(this::record);
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private <T> SenderResult<T> record(SenderResult<Timed<T>> result) {
+        inFlight.decrementAndGet();
+        var timed = result.correlationMetadata();
+        ackLatency.record(System.nanoTime() - timed.startNanos(), TimeUnit.NANOSECONDS);
+        if (result.exception() == null) {
+            acked.increment();
+        } else {
+            failed.increment();
+        }
+        return new Result<>(result.recordMetadata(), result.exception(), timed.metadata());
+    }
+
+    private record Timed<T>(T metadata, long startNanos) {
+    }
+
+    private record Result<T>(RecordMetadata recordMetadata, Exception exception, T correlationMetadata)
+        implements SenderResult<T> {
+    }
+}
@@ -0,0 +1,14 @@
+package com.artyom.kafkapart1.order;
+
+/*
+    typed replacement for the "order-" + i payloads. amount is in minor units (cents), currency is ISO 4217
+ */
+public record OrderEvent(
+    long orderId,
+    long customerId,
+    OrderStatus status,
+    long amountCents,
+    String currency,
+    long createdAt
+) {
+}
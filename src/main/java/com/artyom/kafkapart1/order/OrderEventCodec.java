@@ -0,0 +1,133 @@
+package com.artyom.kafkapart1.order;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+/*
+    compact binary layout, no schema registry needed:
+
+    version     1 byte
+    orderId     varint
+    customerId  varint
+    status      1 byte (ordinal, append only)
+    amountCents zigzag varint
+    currency    3 bytes ascii
+    createdAt   varint
+
+    a typical event is ~18 bytes vs ~114 bytes of json
+ */
+public final class OrderEventCodec {
+
+    static final byte VERSION = 1;
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderEventCodec() {
+    }
+
+    public static byte[] encode(OrderEvent event) {
+        var currency = event.currency();
+        if (currency == null || currency.length() != 3
+            || !isCurrencyLetter(currency.charAt(0)) || !isCurrencyLetter(currency.charAt(1))
+            || !isCurrencyLetter(currency.charAt(2))) {
+            throw new SerializationException("currency must be a 3 letter code: " + currency);
+        }
+        long amount = zigzag(event.amountCents());
+        var bytes = new byte[1 + varintSize(event.orderId()) + varintSize(event.customerId()) + 1
+                             + varintSize(amount) + 3 + varintSize(event.createdAt())];
+        int pos = 0;
+        bytes[pos++] = VERSION;
+        pos = writeVarint(bytes, pos, event.orderId());
+        pos = writeVarint(bytes, pos, event.customerId());
+        bytes[pos++] = (byte) event.status().ordinal();
+        pos = writeVarint(bytes, pos, amount);
+        for (int i = 0; i < 3; i++) {
+            bytes[pos++] = (byte) currency.charAt(i);
+        }
+        writeVarint(bytes, pos, event.createdAt());
+        return bytes;
+    }
+
+    public static OrderEvent decode(byte[] bytes) {
+        try {
+            var reader = new Reader(bytes);
+            if (reader.readByte() != VERSION) {
+                throw new SerializationException("unsupported order event version " + bytes[0]);
+            }
+            long orderId = reader.readVarint();
+            long customerId = reader.readVarint();
+            var status = STATUSES[reader.readByte()];
+            long amount = unzigzag(reader.readVarint());
+            var currency = new String(new char[]{reader.readCurrencyLetter(), reader.readCurrencyLetter(),
+                                                 reader.readCurrencyLetter()});
+            long createdAt = reader.readVarint();
+            return new OrderEvent(orderId, customerId, status, amount, currency, createdAt);
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new SerializationException("truncated order event", e);
+        }
+    }
+
+    /*
+        ISO 4217 codes are upper case A-Z, one byte each on the wire
+     */
+    static boolean isCurrencyLetter(int c) {
+        return c >= 'A' && c <= 'Z';
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static int writeVarint(byte[] bytes, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            bytes[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Reader {
+        private final byte[] bytes;
+        private int pos;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        byte readByte() {
+            return bytes[pos++];
+        }
+
+        char readCurrencyLetter() {
+            byte b = bytes[pos++];
+            if (!isCurrencyLetter(b)) {
+                throw new SerializationException("malformed currency byte " + (b & 0xFF));
+            }
+            return (char) b;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new SerializationException("malformed varint");
+        }
+    }
+}
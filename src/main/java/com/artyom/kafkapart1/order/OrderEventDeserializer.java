@@ -0,0 +1,11 @@
+package com.artyom.kafkapart1.order;
+
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class OrderEventDeserializer implements Deserializer<OrderEvent> {
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : OrderEventCodec.decode(data);
+    }
+}
@@ -0,0 +1,32 @@
+package com.artyom.kafkapart1.order;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+
+/*
+    serializer pairs for SenderOptions / ReceiverOptions, e.g.
+
+    factory.create(StringSerializer.class, OrderEventFormat.BINARY.serializer())
+    ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventFormat.BINARY.deserializer()
+ */
+public enum OrderEventFormat {
+    BINARY(OrderEventSerializer.class, OrderEventDeserializer.class),
+    JSON(OrderEventJsonSerializer.class, OrderEventJsonDeserializer.class);
+
+    private final Class<? extends Serializer<OrderEvent>> serializer;
+    private final Class<? extends Deserializer<OrderEvent>> deserializer;
+
+    OrderEventFormat(Class<? extends Serializer<OrderEvent>> serializer,
+                     Class<? extends Deserializer<OrderEvent>> deserializer) {
+        this.serializer = serializer;
+        this.deserializer = deserializer;
+    }
+
+    public Class<? extends Serializer<OrderEvent>> serializer() {
+        return serializer;
+    }
+
+    public Class<? extends Deserializer<OrderEvent>> deserializer() {
+        return deserializer;
+    }
+}
@@ -0,0 +1,16 @@
+package com.artyom.kafkapart1.order;
+
+import java.nio.charset.StandardCharsets;
+
+import com.google.gson.Gson;
+import org.apache.kafka.common.serialization.Deserializer;
+
+public class OrderEventJsonDeserializer implements Deserializer<OrderEvent> {
+
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public OrderEvent deserialize(String topic, byte[] data) {
+        return data == null ? null : GSON.fromJson(new String(data, StandardCharsets.UTF_8), OrderEvent.class);
+    }
+}
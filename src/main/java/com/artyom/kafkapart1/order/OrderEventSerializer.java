@@ -0,0 +1,11 @@
+package com.artyom.kafkapart1.order;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+public class OrderEventSerializer implements Serializer<OrderEvent> {
+
+    @Override
+    public byte[] serialize(String topic, OrderEvent data) {
+        return data == null ? null : OrderEventCodec.encode(data);
+    }
+}
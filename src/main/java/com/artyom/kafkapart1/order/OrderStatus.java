@@ -0,0 +1,9 @@
+package com.artyom.kafkapart1.order;
+
+public enum OrderStatus {
+    CREATED,
+    PAID,
+    SHIPPED,
+    DELIVERED,
+    CANCELLED
+}
@@ -0,0 +1,52 @@
+package com.artyom.kafkapart1.passthrough;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/*
+    byte level checks on record values and headers, nothing is decoded into a String.
+    values are read with absolute gets so the buffer position the serializer relies on is untouched.
+    a header value is only materialized by the client when a check asks for that header
+ */
+public final class ByteViews {
+
+    private ByteViews() {
+    }
+
+    public static byte[] utf8(String constant) {
+        return constant.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static boolean startsWith(ByteBuffer value, byte[] prefix) {
+        if (value == null || value.remaining() < prefix.length) {
+            return false;
+        }
+        int start = value.position();
+        for (int i = 0; i < prefix.length; i++) {
+            if (value.get(start + i) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean headerEquals(Headers headers, String key, byte[] expected) {
+        Header header = headers.lastHeader(key);
+        return header != null && Arrays.equals(header.value(), expected);
+    }
+
+    /*
+        read-only view over the header value, null if the header is missing
+     */
+    public static ByteBuffer header(Headers headers, String key) {
+        Header header = headers.lastHeader(key);
+        if (header == null || header.value() == null) {
+            return null;
+        }
+        return ByteBuffer.wrap(header.value()).asReadOnlyBuffer();
+    }
+}
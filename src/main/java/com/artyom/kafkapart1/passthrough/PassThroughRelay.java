@@ -0,0 +1,115 @@
+package com.artyom.kafkapart1.passthrough;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+import com.artyom.kafkapart1.consumer.OffsetCommitter;
+import com.artyom.kafkapart1.consumer.OffsetTracker;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    relay / mirror without String (de)serialization
+
+    consumer ---> ByteBufferDeserializer wraps the fetched bytes
+    producer ---> ByteBufferSerializer hands the same array back
+    headers are forwarded as the same Header instances, their values are never decoded
+
+    the router returns the target topic, or null to drop the record.
+    offsets are committed from the OffsetTracker watermark since acks of different
+    target partitions can come back out of order, once more when the relay stops.
+    a failed send fails the relay, only the records forwarded before it are committed
+ */
+public class PassThroughRelay {
+
+    private final KafkaReceiver<byte[], ByteBuffer> receiver;
+    private final KafkaSender<byte[], ByteBuffer> sender;
+    private final Function<ConsumerRecord<byte[], ByteBuffer>, String> router;
+    private final OffsetTracker tracker;
+    private final OffsetCommitter committer;
+    private final Duration commitInterval;
+
+    public PassThroughRelay(KafkaReceiver<byte[], ByteBuffer> receiver, KafkaSender<byte[], ByteBuffer> sender,
+                            OffsetTracker tracker, Function<ConsumerRecord<byte[], ByteBuffer>, String> router,
+                            Duration commitInterval) {
+        this.receiver = receiver;
+        this.sender = sender;
+        this.router = router;
+        this.tracker = tracker;
+        this.committer = new OffsetCommitter(receiver, tracker);
+        this.commitInterval = commitInterval;
+    }
+
+    public static ReceiverOptions<byte[], ByteBuffer> receiverOptions(Map<String, Object> consumerConfig) {
+        var config = new HashMap<>(consumerConfig);
+        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class);
+        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteBufferDeserializer.class);
+        return ReceiverOptions.create(config);
+    }
+
+    public static SenderOptions<byte[], ByteBuffer> senderOptions(KafkaSenderFactory factory) {
+        return factory.senderOptions(ByteArraySerializer.class, ByteBufferSerializer.class);
+    }
+
+    /*
+        emits the number of records forwarded
+     */
+    public Mono<Long> relay() {
+        return Mono.defer(() -> {
+            Disposable commits = committer.schedule(commitInterval);
+            return sender.send(receiver.receive()
+                                   .doOnNext(r -> tracker.track(r.receiverOffset().topicPartition(), r.offset()))
+                                   .handle(this::route))
+                .<SenderResult<ReceiverRecord<byte[], ByteBuffer>>>handle((result, sink) -> {
+                    // a failed send stops the relay, the watermark never moves past the record
+                    if (result.exception() != null) {
+                        sink.error(result.exception());
+                        return;
+                    }
+                    complete(result.correlationMetadata());
+                    sink.next(result);
+                })
+                .transform(committer::commitOnTermination)
+                .count()
+                .doFinally(s -> commits.dispose());
+        });
+    }
+
+    public Mono<Void> commit() {
+        return committer.commit();
+    }
+
+    private void route(ReceiverRecord<byte[], ByteBuffer> record,
+                       SynchronousSink<SenderRecord<byte[], ByteBuffer, ReceiverRecord<byte[], ByteBuffer>>> sink) {
+        var topic = router.apply(record);
+        if (topic == null) {
+            complete(record);
+            return;
+        }
+        var target = new ProducerRecord<>(topic, null, record.timestamp(), record.key(), record.value(), record.headers());
+        sink.next(SenderRecord.create(target, record));
+    }
+
+    private void complete(ReceiverRecord<byte[], ByteBuffer> record) {
+        tracker.complete(record.receiverOffset().topicPartition(), record.offset());
+    }
+}
@@ -0,0 +1,169 @@
+package com.artyom.kafkapart1.producer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.kafka.clients.producer.BufferExhaustedException;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    AIMD emission rate instead of a fixed Flux.interval.
+
+    records pass a token bucket refilled at the current rate. every adjust interval the rate is
+      - halved when records failed on buffer exhaustion / delivery timeout
+      - cut by 30% when the error rate or buffer.memory usage is above its limit
+      - cut by 20% when the average ack latency is above target
+      - raised by a fixed step otherwise
+    so the producer converges just below the point where the broker starts pushing back.
+
+    create the sender with stopOnError(false), otherwise the first failure ends the stream
+ */
+public class AdaptiveRateController {
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveRateController.class);
+
+    private static final double MAX_ERROR_RATE = 0.01;
+    private static final double MIN_BUFFER_AVAILABLE = 0.2;
+
+    private final double minRate;
+    private final double maxRate;
+    private final double increaseStep;
+    private final Duration targetLatency;
+    private final Duration adjustInterval;
+
+    private final LongAdder acks = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+
+    private volatile double rate;
+    private long nextFreeNanos;
+
+    public AdaptiveRateController(double initialRate, double minRate, double maxRate, double increaseStep,
+                                  Duration targetLatency, Duration adjustInterval) {
+        this.rate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.increaseStep = increaseStep;
+        this.targetLatency = targetLatency;
+        this.adjustInterval = adjustInterval;
+        this.nextFreeNanos = System.nanoTime();
+    }
+
+    public double rate() {
+        return rate;
+    }
+
+    public <K, V, T> Flux<SenderResult<T>> send(KafkaSender<K, V> sender, Flux<SenderRecord<K, V, T>> records) {
+        return Flux.defer(() -> {
+            Disposable adjuster = Flux.interval(adjustInterval)
+                .concatMap(t -> bufferAvailable(sender))
+                .subscribe(this::adjust);
+
+            return sender.send(records
+                                   .delayUntil(r -> acquire())
+                                   .map(r -> SenderRecord.create(r, new Timed<>(r.correlationMetadata(), System.nanoTime()))))
+                .map(this::observe)
+                .doFinally(s -> adjuster.dispose());
+        });
+    }
+
+    Mono<Long> acquire() {
+        long wait = reserve();
+        return wait <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait));
+    }
+
+    /*
+        token bucket as a moving "next free slot", up to 10 ms worth of records may burst
+     */
+    synchronized long reserve() {
+        long now = System.nanoTime();
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long burst = Math.max(1, (long) (rate / 100));
+        nextFreeNanos = Math.max(nextFreeNanos, now - burst * interval);
+        long wait = nextFreeNanos - now;
+        nextFreeNanos += interval;
+        return wait;
+    }
+
+    void adjust(double bufferAvailable) {
+        adjust(acks.sumThenReset(), errors.sumThenReset(), exhausted.sumThenReset(), latencyNanos.sumThenReset(),
+               bufferAvailable);
+    }
+
+    void adjust(long acks, long errors, long exhausted, long latencyNanos, double bufferAvailable) {
+        long total = acks + errors;
+        double next;
+        if (exhausted > 0) {
+            next = rate * 0.5;
+        } else if ((total > 0 && (double) errors / total > MAX_ERROR_RATE) || bufferAvailable < MIN_BUFFER_AVAILABLE) {
+            next = rate * 0.7;
+        } else if (total > 0 && latencyNanos / total > targetLatency.toNanos()) {
+            next = rate * 0.8;
+        } else if (total > 0) {
+            next = rate + increaseStep;
+        } else {
+            next = rate;
+        }
+        next = Math.max(minRate, Math.min(maxRate, next));
+        if (next != rate) {
+            log.debug("rate {} -> {} (acks={}, errors={}, exhausted={}, buffer available={})",
+                      (long) rate, (long) next, acks, errors, exhausted, bufferAvailable);
+        }
+        rate = next;
+    }
+
+    private <T> SenderResult<T> observe(SenderResult<Timed<T>> result) {
+        var timed = result.correlationMetadata();
+        latencyNanos.add(System.nanoTime() - timed.startNanos());
+        var exception = result.exception();
+        if (exception == null) {
+            acks.increment();
+        } else {
+            errors.increment();
+            if (exception instanceof BufferExhaustedException || exception instanceof TimeoutException) {
+                exhausted.increment();
+            }
+        }
+        return new Result<>(result.recordMetadata(), exception, timed.metadata());
+    }
+
+    /*
+        free share of buffer.memory, 1.0 when the producer metrics are not available
+     */
+    private static Mono<Double> bufferAvailable(KafkaSender<?, ?> sender) {
+        return sender.doOnProducer(producer -> {
+                double available = -1;
+                double total = -1;
+                for (var metric : producer.metrics().entrySet()) {
+                    var name = metric.getKey();
+                    if (!"producer-metrics".equals(name.group())) {
+                        continue;
+                    }
+                    if ("buffer-available-bytes".equals(name.name())) {
+                        available = ((Number) metric.getValue().metricValue()).doubleValue();
+                    } else if ("buffer-total-bytes".equals(name.name())) {
+                        total = ((Number) metric.getValue().metricValue()).doubleValue();
+                    }
+                }
+                return available < 0 || total <= 0 ? 1.0 : available / total;
+            })
+            .onErrorReturn(1.0);
+    }
+
+    private record Timed<T>(T metadata, long startNanos) {
+    }
+
+    private record Result<T>(RecordMetadata recordMetadata, Exception exception, T correlationMetadata)
+        implements SenderResult<T> {
+    }
+}
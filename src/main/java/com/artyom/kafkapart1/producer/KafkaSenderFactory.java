@@ -0,0 +1,55 @@
+package com.artyom.kafkapart1.producer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.stereotype.Component;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+
+/*
+    builds senders from a throughput profile instead of hardcoding producer settings in every main()
+
+    profile settings < overrides < serializers / bootstrap servers
+ */
+@Component
+public class KafkaSenderFactory {
+
+    private final SenderProperties properties;
+
+    public KafkaSenderFactory(SenderProperties properties) {
+        this.properties = properties;
+    }
+
+    public SenderProperties properties() {
+        return properties;
+    }
+
+    public Map<String, Object> producerConfig() {
+        var config = new HashMap<String, Object>(properties.profile().producerConfig());
+        config.putAll(properties.overrides());
+        config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, properties.bootstrapServers());
+        return config;
+    }
+
+    public <K, V> SenderOptions<K, V> senderOptions(Class<? extends Serializer<K>> keySerializer,
+                                                    Class<? extends Serializer<V>> valueSerializer) {
+        var config = producerConfig();
+        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, keySerializer);
+        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, valueSerializer);
+        return SenderOptions.<K, V>create(config)
+            .maxInFlight(properties.maxInFlight());
+    }
+
+    public <K, V> KafkaSender<K, V> create(Class<? extends Serializer<K>> keySerializer,
+                                           Class<? extends Serializer<V>> valueSerializer) {
+        return KafkaSender.create(senderOptions(keySerializer, valueSerializer));
+    }
+
+    public KafkaSender<String, String> createStringSender() {
+        return create(StringSerializer.class, StringSerializer.class);
+    }
+}
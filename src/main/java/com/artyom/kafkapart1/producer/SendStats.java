@@ -0,0 +1,66 @@
+package com.artyom.kafkapart1.producer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    aggregates send results into counters instead of logging every correlation id.
+    logging one line per SenderResult caps the producer at whatever the appender can write
+ */
+public class SendStats {
+
+    private final LongAdder acked = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final long startNanos = System.nanoTime();
+    private volatile long endNanos;
+
+    public static <T> Mono<SendStats> collect(Flux<SenderResult<T>> results) {
+        return Mono.defer(() -> {
+            var stats = new SendStats();
+            return results
+                .doOnNext(stats::record)
+                .then(Mono.fromSupplier(stats::complete));
+        });
+    }
+
+    public void record(SenderResult<?> result) {
+        if (result.exception() == null) {
+            acked.increment();
+        } else {
+            failed.increment();
+        }
+    }
+
+    public SendStats complete() {
+        endNanos = System.nanoTime();
+        return this;
+    }
+
+    public long acked() {
+        return acked.sum();
+    }
+
+    public long failed() {
+        return failed.sum();
+    }
+
+    public long elapsedMillis() {
+        long end = endNanos == 0 ? System.nanoTime() : endNanos;
+        return TimeUnit.NANOSECONDS.toMillis(end - startNanos);
+    }
+
+    public double recordsPerSecond() {
+        long millis = Math.max(1, elapsedMillis());
+        return (acked() + failed()) * 1000.0 / millis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("acked=%d, failed=%d, elapsed=%d ms, rate=%.0f msg/s",
+                             acked(), failed(), elapsedMillis(), recordsPerSecond());
+    }
+}
@@ -0,0 +1,37 @@
+package com.artyom.kafkapart1.producer;
+
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/*
+    app.kafka.sender.bootstrap-servers=localhost:9092
+    app.kafka.sender.profile=HIGH_THROUGHPUT
+    app.kafka.sender.max-in-flight=10000
+    app.kafka.sender.overrides.max.request.size=2097152
+ */
+@ConfigurationProperties(prefix = "app.kafka.sender")
+public record SenderProperties(
+    @DefaultValue("localhost:9092") String bootstrapServers,
+    @DefaultValue("DEFAULT") ThroughputProfile profile,
+    @DefaultValue("1024") int maxInFlight,
+    Map<String, String> overrides
+) {
+
+    public SenderProperties {
+        overrides = overrides == null ? Map.of() : Map.copyOf(overrides);
+    }
+
+    public static SenderProperties of(ThroughputProfile profile) {
+        return new SenderProperties("localhost:9092", profile, 1024, Map.of());
+    }
+
+    public SenderProperties withMaxInFlight(int maxInFlight) {
+        return new SenderProperties(bootstrapServers, profile, maxInFlight, overrides);
+    }
+
+    public SenderProperties withBootstrapServers(String bootstrapServers) {
+        return new SenderProperties(bootstrapServers, profile, maxInFlight, overrides);
+    }
+}
@@ -0,0 +1,47 @@
+package com.artyom.kafkapart1.producer;
+
+import java.util.Map;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+/*
+    producer tuning presets
+
+    linger.ms / batch.size decide how full a batch gets before it is shipped,
+    compression is applied per batch, so bigger batches compress better.
+    idempotence requires acks=all
+ */
+public enum ThroughputProfile {
+    DEFAULT(0, 16_384, "none", "all", true, 32L * 1024 * 1024),
+    HIGH_THROUGHPUT(20, 256 * 1024, "lz4", "1", false, 128L * 1024 * 1024),
+    LOW_LATENCY(0, 16_384, "none", "1", false, 32L * 1024 * 1024),
+    DURABLE(5, 64 * 1024, "zstd", "all", true, 64L * 1024 * 1024);
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+    private final String acks;
+    private final boolean idempotence;
+    private final long bufferMemory;
+
+    ThroughputProfile(int lingerMs, int batchSize, String compressionType, String acks,
+                      boolean idempotence, long bufferMemory) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.acks = acks;
+        this.idempotence = idempotence;
+        this.bufferMemory = bufferMemory;
+    }
+
+    public Map<String, Object> producerConfig() {
+        return Map.of(
+            ProducerConfig.LINGER_MS_CONFIG, lingerMs,
+            ProducerConfig.BATCH_SIZE_CONFIG, batchSize,
+            ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType,
+            ProducerConfig.ACKS_CONFIG, acks,
+            ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence,
+            ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory
+        );
+    }
+}
@@ -0,0 +1,13 @@
+package com.artyom.kafkapart1.replay;
+
+import org.apache.kafka.common.TopicPartition;
+
+/*
+    resolved offsets of one partition, start inclusive, end exclusive
+ */
+public record PartitionRange(TopicPartition partition, long start, long end) {
+
+    public long size() {
+        return Math.max(0, end - start);
+    }
+}
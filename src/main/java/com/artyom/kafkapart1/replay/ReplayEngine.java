@@ -0,0 +1,228 @@
+package com.artyom.kafkapart1.replay;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/*
+    replays a bounded offset range instead of seeking inside a group's assign listener
+
+    1. start / end of every partition are resolved up front with Admin.listOffsets
+       (earliest, latest, forTimestamp), absolute offsets are clamped to the log
+    2. the partitions are assigned manually, no group: nothing is ever committed and
+       the live consumer group is not rebalanced
+    3. a partition is paused once its position reaches the end offset, the flux completes
+       when the last one is done
+
+    fetches are sized for bulk reads, settings in the given config win.
+    the end check looks at the consumer position after every poll, not at the last record:
+    on transactional topics the offset before end is often a marker and aborted records are
+    skipped under read_committed, neither is ever delivered
+ */
+public class ReplayEngine<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(ReplayEngine.class);
+
+    private static final Map<String, Object> FAST_FETCH = Map.of(
+        ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1024 * 1024,
+        ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100,
+        ConsumerConfig.FETCH_MAX_BYTES_CONFIG, 64 * 1024 * 1024,
+        ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 8 * 1024 * 1024,
+        ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 5_000,
+        ConsumerConfig.RECEIVE_BUFFER_CONFIG, 1024 * 1024
+    );
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+    private static final Duration CLOSE_TIMEOUT = Duration.ofSeconds(5);
+
+    private final Map<String, Object> consumerConfig;
+
+    public ReplayEngine(Map<String, Object> consumerConfig) {
+        this.consumerConfig = bulkReadConfig(consumerConfig);
+    }
+
+    /*
+        group-less consumer config with fetches sized for reading a range as fast as possible
+     */
+    public static Map<String, Object> bulkReadConfig(Map<String, Object> consumerConfig) {
+        var config = new HashMap<>(FAST_FETCH);
+        config.putAll(consumerConfig);
+        config.remove(ConsumerConfig.GROUP_ID_CONFIG);
+        config.remove(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG);
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return config;
+    }
+
+    public Flux<ConsumerRecord<K, V>> replay(ReplayRequest request) {
+        return resolve(request).flatMapMany(this::replay);
+    }
+
+    /*
+        ranges resolved by the caller, for example with offsets it also needs itself
+     */
+    public Flux<ConsumerRecord<K, V>> replay(List<PartitionRange> ranges) {
+        return Flux.defer(() -> {
+            var nonEmpty = ranges.stream()
+                .filter(range -> range.size() > 0)
+                .collect(Collectors.toMap(PartitionRange::partition, Function.identity()));
+            log.info("replaying {} records of {}", nonEmpty.values().stream().mapToLong(PartitionRange::size).sum(), ranges);
+            return nonEmpty.isEmpty() ? Flux.empty() : read(nonEmpty);
+        });
+    }
+
+    public Mono<List<PartitionRange>> resolve(ReplayRequest request) {
+        return Mono.fromCallable(() -> {
+                try (var admin = Admin.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG,
+                                                     consumerConfig.get(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG)))) {
+                    return resolve(admin, request);
+                }
+            })
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /*
+        pulled one poll per request with a prefetch of 1, so a slow subscriber only holds one poll of records.
+        the completion check runs on the polling thread right after the poll it belongs to
+     */
+    private Flux<ConsumerRecord<K, V>> read(Map<TopicPartition, PartitionRange> ranges) {
+        return Flux.<List<ConsumerRecord<K, V>>, RangeReader>generate(
+                () -> new RangeReader(ranges),
+                (reader, sink) -> {
+                    var records = reader.poll();
+                    if (!records.isEmpty()) {
+                        sink.next(records);
+                    }
+                    if (reader.done()) {
+                        sink.complete();
+                    } else if (records.isEmpty()) {
+                        sink.next(List.of());
+                    }
+                    return reader;
+                },
+                reader -> {
+                    // a cancel after completion cleans up again, with the state already cleared
+                    if (reader != null) {
+                        reader.close();
+                    }
+                })
+            .concatMapIterable(Function.identity(), 1)
+            .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    static List<PartitionRange> resolve(Admin admin, ReplayRequest request) throws ExecutionException, InterruptedException {
+        var partitions = partitions(admin, request);
+        var earliest = listOffsets(admin, partitions, OffsetSpec.earliest());
+        var latest = listOffsets(admin, partitions, OffsetSpec.latest());
+        var from = offsets(admin, partitions, request.from(), earliest, latest);
+        var to = offsets(admin, partitions, request.to(), earliest, latest);
+        return partitions.stream()
+            .map(tp -> new PartitionRange(tp, from.get(tp), to.get(tp)))
+            .toList();
+    }
+
+    private static List<TopicPartition> partitions(Admin admin, ReplayRequest request)
+        throws ExecutionException, InterruptedException {
+        if (!request.partitions().isEmpty()) {
+            return request.partitions().stream().map(p -> new TopicPartition(request.topic(), p)).toList();
+        }
+        return admin.describeTopics(List.of(request.topic()))
+            .allTopicNames()
+            .get()
+            .get(request.topic())
+            .partitions()
+            .stream()
+            .map(p -> new TopicPartition(request.topic(), p.partition()))
+            .toList();
+    }
+
+    private static Map<TopicPartition, Long> offsets(Admin admin, List<TopicPartition> partitions, ReplayPosition position,
+                                                     Map<TopicPartition, Long> earliest, Map<TopicPartition, Long> latest)
+        throws ExecutionException, InterruptedException {
+        var resolved = switch (position.kind()) {
+            case EARLIEST -> earliest;
+            case LATEST -> latest;
+            case OFFSET -> partitions.stream().collect(Collectors.toMap(Function.identity(), tp -> position.value()));
+            case TIMESTAMP -> listOffsets(admin, partitions, OffsetSpec.forTimestamp(position.value()));
+        };
+        var clamped = new HashMap<TopicPartition, Long>();
+        for (var tp : partitions) {
+            var offset = resolved.get(tp);
+            // forTimestamp answers -1 when no record is at or after the timestamp
+            clamped.put(tp, offset < 0 ? latest.get(tp) : Math.clamp(offset, earliest.get(tp), latest.get(tp)));
+        }
+        return clamped;
+    }
+
+    private static Map<TopicPartition, Long> listOffsets(Admin admin, List<TopicPartition> partitions, OffsetSpec spec)
+        throws ExecutionException, InterruptedException {
+        var request = partitions.stream().collect(Collectors.toMap(Function.identity(), tp -> spec));
+        return admin.listOffsets(request)
+            .all()
+            .get()
+            .entrySet()
+            .stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().offset()));
+    }
+
+    private final class RangeReader implements AutoCloseable {
+        private final KafkaConsumer<K, V> consumer = new KafkaConsumer<>(consumerConfig);
+        private final Map<TopicPartition, PartitionRange> remaining;
+
+        RangeReader(Map<TopicPartition, PartitionRange> ranges) {
+            remaining = new HashMap<>(ranges);
+            consumer.assign(ranges.keySet());
+            ranges.values().forEach(range -> consumer.seek(range.partition(), range.start()));
+        }
+
+        /*
+            a partition is done once its position passes end, whether or not a record sits at end - 1:
+            markers and aborted records (read_committed) move the position without being returned
+         */
+        List<ConsumerRecord<K, V>> poll() {
+            var polled = consumer.poll(POLL_TIMEOUT);
+            var records = new ArrayList<ConsumerRecord<K, V>>(polled.count());
+            var done = new ArrayList<TopicPartition>();
+            for (var range : remaining.values()) {
+                for (var record : polled.records(range.partition())) {
+                    if (record.offset() < range.end()) {
+                        records.add(record);
+                    }
+                }
+                if (consumer.position(range.partition()) >= range.end()) {
+                    done.add(range.partition());
+                }
+            }
+            if (!done.isEmpty()) {
+                consumer.pause(done);
+                done.forEach(remaining::remove);
+            }
+            return records;
+        }
+
+        boolean done() {
+            return remaining.isEmpty();
+        }
+
+        @Override
+        public void close() {
+            consumer.close(CLOSE_TIMEOUT);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.artyom.kafkapart1.replay;
+
+import java.time.Instant;
+
+/*
+    where a replay starts (inclusive) or stops (exclusive)
+
+    TIMESTAMP resolves to the first offset whose record timestamp is >= the given epoch millis,
+    or to the log end when there is none
+ */
+public record ReplayPosition(Kind kind, long value) {
+
+    public enum Kind {
+        EARLIEST,
+        LATEST,
+        OFFSET,
+        TIMESTAMP
+    }
+
+    public static ReplayPosition earliest() {
+        return new ReplayPosition(Kind.EARLIEST, 0);
+    }
+
+    public static ReplayPosition latest() {
+        return new ReplayPosition(Kind.LATEST, 0);
+    }
+
+    public static ReplayPosition offset(long offset) {
+        return new ReplayPosition(Kind.OFFSET, offset);
+    }
+
+    public static ReplayPosition timestamp(Instant timestamp) {
+        return new ReplayPosition(Kind.TIMESTAMP, timestamp.toEpochMilli());
+    }
+}
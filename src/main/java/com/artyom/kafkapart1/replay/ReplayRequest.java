@@ -0,0 +1,17 @@
+package com.artyom.kafkapart1.replay;
+
+import java.util.List;
+
+/*
+    an empty partition list replays every partition of the topic
+ */
+public record ReplayRequest(String topic, List<Integer> partitions, ReplayPosition from, ReplayPosition to) {
+
+    public static ReplayRequest all(String topic, ReplayPosition from, ReplayPosition to) {
+        return new ReplayRequest(topic, List.of(), from, to);
+    }
+
+    public static ReplayRequest partition(String topic, int partition, ReplayPosition from, ReplayPosition to) {
+        return new ReplayRequest(topic, List.of(partition), from, to);
+    }
+}
@@ -0,0 +1,53 @@
+package com.artyom.kafkapart1.retry;
+
+import java.nio.charset.StandardCharsets;
+
+import com.artyom.kafkapart1.header.HeaderCodec;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+
+/*
+    retry bookkeeping carried on the record itself, numbers use HeaderCodec's 8 byte encoding
+
+    retry-attempt         failed attempts so far (absent on the main topic)
+    retry-due-at          epoch millis before which a retry tier must not handle the record
+    retry-original-topic  topic the record was first consumed from
+    retry-exception       class and message of the last failure
+ */
+public final class RetryHeaders {
+
+    public static final String ATTEMPT = "retry-attempt";
+    public static final String DUE_AT = "retry-due-at";
+    public static final String ORIGINAL_TOPIC = "retry-original-topic";
+    public static final String EXCEPTION = "retry-exception";
+
+    private RetryHeaders() {
+    }
+
+    public static int attempt(Headers headers) {
+        return (int) HeaderCodec.readLong(headers, ATTEMPT, 0);
+    }
+
+    public static long dueAt(Headers headers) {
+        return HeaderCodec.readLong(headers, DUE_AT, 0);
+    }
+
+    /*
+        copy of the record headers with the retry headers of the next attempt
+     */
+    static Headers next(Headers headers, String topic, int attempt, long dueAt, Throwable error) {
+        var next = new RecordHeaders(headers.toArray());
+        if (next.lastHeader(ORIGINAL_TOPIC) == null) {
+            next.add(new RecordHeader(ORIGINAL_TOPIC, topic.getBytes(StandardCharsets.UTF_8)));
+        }
+        next.remove(ATTEMPT);
+        next.remove(DUE_AT);
+        next.remove(EXCEPTION);
+        next.add(HeaderCodec.longValue(ATTEMPT, attempt));
+        next.add(HeaderCodec.longValue(DUE_AT, dueAt));
+        next.add(new RecordHeader(EXCEPTION, (error.getClass().getName() + ": " + error.getMessage())
+            .getBytes(StandardCharsets.UTF_8)));
+        return next;
+    }
+}
@@ -0,0 +1,55 @@
+package com.artyom.kafkapart1.retry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+    main topic ---> retry tier 1 ---> ... ---> retry tier n ---> dead letter topic
+
+    a record that failed attempt a (0 on the main topic) goes to tier a + 1,
+    after the last tier it goes to the dead letter topic
+ */
+public record RetryTopology(String mainTopic, List<Tier> tiers, String deadLetterTopic) {
+
+    public record Tier(String topic, Duration delay) {
+    }
+
+    /*
+        order-events, 1s, 10s, 1m ---> order-events-retry-1s, order-events-retry-10s, order-events-retry-1m, order-events-dlt
+     */
+    public static RetryTopology of(String mainTopic, Duration... delays) {
+        var tiers = Arrays.stream(delays)
+            .map(delay -> new Tier(mainTopic + "-retry-" + suffix(delay), delay))
+            .toList();
+        return new RetryTopology(mainTopic, tiers, mainTopic + "-dlt");
+    }
+
+    /*
+        tier a failed record is sent to, null means dead letter
+     */
+    public Tier next(int failedAttempt) {
+        return failedAttempt < tiers.size() ? tiers.get(failedAttempt) : null;
+    }
+
+    /*
+        main topic and every retry tier, the dead letter topic is not consumed
+     */
+    public List<String> consumedTopics() {
+        var topics = new ArrayList<String>(tiers.size() + 1);
+        topics.add(mainTopic);
+        tiers.forEach(tier -> topics.add(tier.topic()));
+        return topics;
+    }
+
+    private static String suffix(Duration delay) {
+        if (delay.toMillis() % 60_000 == 0) {
+            return delay.toMinutes() + "m";
+        }
+        if (delay.toMillis() % 1_000 == 0) {
+            return delay.toSeconds() + "s";
+        }
+        return delay.toMillis() + "ms";
+    }
+}
@@ -0,0 +1,122 @@
+package com.artyom.kafkapart1.retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+/*
+    non blocking retries: a failed record is republished to the next retry tier (or the dead letter topic)
+    and its offset acknowledged, so the partition it came from keeps moving.
+
+    records of a retry tier are due in order of their offset (same delay, appended in time order).
+    when the head of a tier partition is not due yet the partition is paused and seeked back to it,
+    records of that partition already in flight are dropped, and the partition is resumed when the
+    record is due. nothing sleeps, the other partitions of the receiver keep flowing
+ */
+public class RetryingReceiver<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(RetryingReceiver.class);
+
+    public enum Outcome {
+        HANDLED,
+        RETRIED,
+        DEAD_LETTERED
+    }
+
+    private final RetryTopology topology;
+    private final KafkaSender<K, V> sender;
+    private final Function<ConsumerRecord<K, V>, Mono<Void>> handler;
+    private final Map<TopicPartition, Long> seekedTo = new ConcurrentHashMap<>();
+
+    public RetryingReceiver(RetryTopology topology, KafkaSender<K, V> sender,
+                            Function<ConsumerRecord<K, V>, Mono<Void>> handler) {
+        this.topology = topology;
+        this.sender = sender;
+        this.handler = handler;
+    }
+
+    /*
+        forgets pending seeks of partitions that move, a later owner starts from the committed offset
+     */
+    public ReceiverOptions<K, V> bind(ReceiverOptions<K, V> options) {
+        return options
+            .addAssignListener(partitions -> partitions.forEach(p -> seekedTo.remove(p.topicPartition())))
+            .addRevokeListener(partitions -> partitions.forEach(p -> seekedTo.remove(p.topicPartition())));
+    }
+
+    /*
+        the receiver may be subscribed to the main topic, any retry tiers, or all of topology.consumedTopics()
+     */
+    public Flux<Outcome> run(KafkaReceiver<K, V> receiver) {
+        return receiver.receive()
+            .concatMap(record -> {
+                var partition = record.receiverOffset().topicPartition();
+                var seekOffset = seekedTo.get(partition);
+                if (seekOffset != null) {
+                    if (record.offset() != seekOffset) {
+                        return Mono.empty(); // fetched before the seek, comes again after resume
+                    }
+                    seekedTo.remove(partition);
+                }
+                long wait = RetryHeaders.dueAt(record.headers()) - System.currentTimeMillis();
+                if (wait > 0) {
+                    return defer(receiver, record, wait);
+                }
+                return handle(record)
+                    .doOnNext(outcome -> record.receiverOffset().acknowledge());
+            });
+    }
+
+    private Mono<Outcome> handle(ReceiverRecord<K, V> record) {
+        return Mono.defer(() -> handler.apply(record))
+            .thenReturn(Outcome.HANDLED)
+            .onErrorResume(error -> republish(record, error));
+    }
+
+    private Mono<Outcome> republish(ConsumerRecord<K, V> record, Throwable error) {
+        int attempt = RetryHeaders.attempt(record.headers()) + 1;
+        var tier = topology.next(attempt - 1);
+        var topic = tier == null ? topology.deadLetterTopic() : tier.topic();
+        long dueAt = tier == null ? 0 : System.currentTimeMillis() + tier.delay().toMillis();
+        var headers = RetryHeaders.next(record.headers(), record.topic(), attempt, dueAt, error);
+        var target = new ProducerRecord<>(topic, null, record.key(), record.value(), headers);
+
+        log.debug("attempt {} of {}-{}@{} failed, sending to {}", attempt, record.topic(), record.partition(),
+                  record.offset(), topic, error);
+        return sender.send(Mono.just(SenderRecord.create(target, null)))
+            .single()
+            .flatMap(result -> result.exception() == null ? Mono.just(result) : Mono.error(result.exception()))
+            .thenReturn(tier == null ? Outcome.DEAD_LETTERED : Outcome.RETRIED);
+    }
+
+    private Mono<Outcome> defer(KafkaReceiver<K, V> receiver, ReceiverRecord<K, V> record, long waitMillis) {
+        var partition = record.receiverOffset().topicPartition();
+        seekedTo.put(partition, record.offset());
+        return receiver.doOnConsumer(consumer -> {
+                consumer.pause(List.of(partition));
+                consumer.seek(partition, record.offset());
+                return partition;
+            })
+            .doOnNext(p -> Mono.delay(Duration.ofMillis(waitMillis))
+                .then(receiver.doOnConsumer(consumer -> {
+                    consumer.resume(List.of(p));
+                    return p;
+                }))
+                .subscribe(resumed -> {}, e -> log.debug("resume of {} skipped", p, e)))
+            .then(Mono.empty());
+    }
+}
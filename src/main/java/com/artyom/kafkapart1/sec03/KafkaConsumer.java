@@ -3,19 +3,20 @@ package com.artyom.kafkapart1.sec03;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import com.artyom.kafkapart1.tracing.RecordTracer;
+import com.artyom.kafkapart1.tracing.Sampling;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import reactor.kafka.receiver.KafkaReceiver;
 import reactor.kafka.receiver.ReceiverOptions;
 
 /*
     goal to produce 1_000_000 events
     producer ---> kafka broker <----> consumer
+
+    1 record in 10_000 is traced through the async record-trace logger
  */
 public class KafkaConsumer {
-    private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
 
     public static void main(String[] args) {
 
@@ -31,9 +32,12 @@ public class KafkaConsumer {
         var options = ReceiverOptions.create(consumerConfig)
             .subscription(Pattern.compile("order.*"));
 
+        var tracer = new RecordTracer();
+        tracer.enable("order-events", Sampling.everyNth(10_000));
+
         KafkaReceiver.create(options)
             .receive()
-            .doOnNext(r -> log.info("Received: topic: {}, key: {}, value: {}", r.topic(), r.key(), r.value()))
+            .doOnNext(tracer::trace)
             .doOnNext(r -> r.receiverOffset().acknowledge())
             .subscribe();
     }
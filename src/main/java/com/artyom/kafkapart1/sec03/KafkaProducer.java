@@ -1,45 +1,55 @@
 package com.artyom.kafkapart1.sec03;
 
-import java.util.Map;
-
-import org.apache.kafka.clients.producer.ProducerConfig;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.artyom.kafkapart1.metrics.KafkaMetrics;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SendStats;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import reactor.core.publisher.Flux;
 import reactor.kafka.sender.KafkaSender;
-import reactor.kafka.sender.SenderOptions;
 import reactor.kafka.sender.SenderRecord;
 
+/*
+    goal to produce 1_000_000 events
+    acks are aggregated into counters, only the summary is logged, with the ack latency and in flight
+    records of SenderMetrics every second while sending
+ */
 public class KafkaProducer {
     private static final Logger log = LoggerFactory.getLogger(KafkaProducer.class);
 
     public static void main(String[] args) {
 
-        var producerConfig = Map.<String, Object>of(
-            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
-            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
-            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class
-        );
-
-        var options = SenderOptions.<String, String>create(producerConfig)
-            .maxInFlight(10_000);
+        var properties = SenderProperties.of(ThroughputProfile.HIGH_THROUGHPUT)
+            .withMaxInFlight(10_000);
 
         var flux = Flux.range(1, 1_000_000)
             .map(i -> new ProducerRecord<>("order-events", i.toString(), "order-" + i))
             .map(record -> SenderRecord.create(record, record.key()));
 
-        var start = System.currentTimeMillis();
-        KafkaSender<String, String> sender = KafkaSender.create(options);
-
-        sender.send(flux)
-            .doOnNext(result -> {
-                String key = result.correlationMetadata();
-                log.info("correlation id: {}", key);
-            })
-            .doOnComplete(() -> {
-                log.info("send completed in {} ms", (System.currentTimeMillis() - start));
+        var metrics = new KafkaMetrics(new SimpleMeterRegistry());
+        var senderMetrics = metrics.sender("sec03", properties.maxInFlight());
+        var options = new KafkaSenderFactory(properties).senderOptions(StringSerializer.class, StringSerializer.class);
+        KafkaSender<String, String> sender = KafkaSender.create(metrics.bind(options, "sec03"));
+
+        var progress = Flux.interval(Duration.ofSeconds(1))
+            .subscribe(t -> {
+                var latency = metrics.registry().get("kafka.sender.ack.latency").timer();
+                log.info("acked: {}, in flight: {}, mean ack latency: {} ms",
+                         latency.count(), senderMetrics.inFlight(), latency.mean(TimeUnit.MILLISECONDS));
+            });
+
+        SendStats.collect(senderMetrics.send(sender, flux))
+            .doOnNext(stats -> log.info("send completed: {}", stats))
+            .doFinally(s -> {
+                progress.dispose();
                 sender.close();
             })
             .subscribe();
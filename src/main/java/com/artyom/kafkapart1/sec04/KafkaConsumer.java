@@ -3,7 +3,9 @@ package com.artyom.kafkapart1.sec04;
 import java.util.Map;
 import java.util.regex.Pattern;
 
+import com.artyom.kafkapart1.header.HeaderCodec;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +19,8 @@ import reactor.kafka.receiver.ReceiverOptions;
 public class KafkaConsumer {
     private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
 
+    private static final Header CLIENT_ID = HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client");
+
     public static void main(String[] args) {
 
         var consumerConfig = Map.<String, Object>of(
@@ -33,10 +37,8 @@ public class KafkaConsumer {
 
         KafkaReceiver.create(options)
             .receive()
-            .doOnNext(r -> log.info("Received: key: {}, value: {}", r.key(), r.value()))
-            .doOnNext(r -> r.headers().forEach(header -> log.info("{}: {}",
-                                                                  header.key(),
-                                                                  new String(header.value()))))
+            .doOnNext(r -> log.info("Received: key: {}, value: {}, from some-client: {}",
+                                    r.key(), r.value(), HeaderCodec.matches(r.headers(), CLIENT_ID)))
             .doOnNext(r -> r.receiverOffset().acknowledge())
             .subscribe();
     }
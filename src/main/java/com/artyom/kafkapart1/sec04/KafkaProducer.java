@@ -1,10 +1,12 @@
 package com.artyom.kafkapart1.sec04;
 
+import java.util.List;
 import java.util.Map;
 
+import com.artyom.kafkapart1.header.HeaderCodec;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.header.Header;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,6 +18,12 @@ import reactor.kafka.sender.SenderRecord;
 public class KafkaProducer {
     private static final Logger log = LoggerFactory.getLogger(KafkaProducer.class);
 
+    // encoded once, every record shares the same Header instances
+    private static final List<Header> HEADERS = List.of(
+        HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client"),
+        HeaderCodec.constant(HeaderCodec.TRACING_ID, "123456")
+    );
+
     public static void main(String[] args) {
 
         var producerConfig = Map.<String, Object>of(
@@ -41,11 +49,8 @@ public class KafkaProducer {
     }
 
 
-    private static SenderRecord<String, String, String> createSenderRecord(Integer i) {
-        var headers = new RecordHeaders();
-        headers.add("client-id", "some-client".getBytes());
-        headers.add("tracing-id", "123456".getBytes());
-        var pr = new ProducerRecord<>("order-events", null, i.toString(), "order-" + i, headers);
+    static SenderRecord<String, String, String> createSenderRecord(Integer i) {
+        var pr = new ProducerRecord<>("order-events", null, i.toString(), "order-" + i, HEADERS);
         return SenderRecord.create(pr, pr.key());
     }
 }
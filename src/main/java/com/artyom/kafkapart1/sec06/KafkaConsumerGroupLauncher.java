@@ -0,0 +1,39 @@
+package com.artyom.kafkapart1.sec06;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.group.ConsumerGroupLauncher;
+import com.artyom.kafkapart1.group.ScalingPolicy;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+    KafkaConsumerGroup's three members from one main(), scaled between 1 and 6 members by lag
+ */
+public class KafkaConsumerGroupLauncher {
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumerGroupLauncher.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName()
+        );
+
+        var launcher = new ConsumerGroupLauncher<String, String>(consumerConfig, List.of("order-events"), "instance",
+                                                                 receiver -> receiver.receive()
+                                                                     .doOnNext(r -> log.info("Received: partition: {}, key: {}", r.partition(), r.key()))
+                                                                     .doOnNext(r -> r.receiverOffset().acknowledge()));
+        launcher.scaleTo(3);
+        launcher.autoscale(Duration.ofSeconds(30), new ScalingPolicy(1, 6, 100_000, 1_000));
+    }
+}
@@ -0,0 +1,64 @@
+package com.artyom.kafkapart1.sec06;
+
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import com.artyom.kafkapart1.state.ChangelogStore;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    same group setup as KafkaConsumer, but keeps a count per key in a local store
+    the store is restored from order-events-counts-changelog (create it with ChangelogStore.changelogTopic,
+    same partition count as order-events) whenever partitions move between the instances
+ */
+public class KafkaCountingConsumer {
+    private static final Logger log = LoggerFactory.getLogger(KafkaCountingConsumer.class);
+
+    public static void start(String instanceId) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-counts",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName(),
+            ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId
+        );
+
+        var sender = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DURABLE))
+            .create(ByteArraySerializer.class, ByteArraySerializer.class);
+        var counts = new ChangelogStore<>("order-events-counts-changelog", Serdes.String(), Serdes.Long(),
+                                          sender, consumerConfig);
+
+        var options = counts.bind(ReceiverOptions.<String, String>create(consumerConfig))
+            .subscription(List.of("order-events"));
+
+        KafkaReceiver.create(options)
+            .receive()
+            .doOnNext(r -> {
+                var count = counts.get(r.partition(), r.key());
+                var next = count == null ? 1L : count + 1;
+                counts.put(r.partition(), r.key(), next, r.receiverOffset()); // acknowledged once the changelog has it
+                log.info("key: {}, count: {}", r.key(), next);
+            })
+            .mergeWith(counts.writes().then(Mono.empty())) // a failed changelog write stops the consumer
+            .subscribe();
+    }
+
+    public static void main(String[] args) {
+        start(args.length > 0 ? args[0] : "1");
+    }
+}
@@ -0,0 +1,40 @@
+package com.artyom.kafkapart1.sec07;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+
+import com.artyom.kafkapart1.replay.ReplayEngine;
+import com.artyom.kafkapart1.replay.ReplayPosition;
+import com.artyom.kafkapart1.replay.ReplayRequest;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/*
+    to replay the last 10 minutes of order-events without touching any consumer group
+ */
+public class KafkaReplay {
+    private static final Logger log = LoggerFactory.getLogger(KafkaReplay.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class
+        );
+
+        var request = ReplayRequest.all("order-events",
+                                        ReplayPosition.timestamp(Instant.now().minus(Duration.ofMinutes(10))),
+                                        ReplayPosition.latest());
+
+        new ReplayEngine<String, String>(consumerConfig)
+            .replay(request)
+            .doOnNext(r -> log.info("Replayed: partition: {}, offset: {}, value: {}", r.partition(), r.offset(), r.value()))
+            .count()
+            .doOnNext(count -> log.info("replay completed: {} records", count))
+            .block();
+    }
+}
@@ -0,0 +1,42 @@
+package com.artyom.kafkapart1.sec08;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import com.artyom.kafkapart1.consumer.BatchReceiver;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    batch consumer: up to 500 records or 200 ms per handler call,
+    one acknowledge per partition per batch instead of one per record
+ */
+public class KafkaConsumer {
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-batch",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 1000,
+            ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, "1"
+        );
+
+        var options = ReceiverOptions.<String, String>create(consumerConfig)
+            .subscription(Pattern.compile("order.*"));
+
+        new BatchReceiver<>(KafkaReceiver.create(options), 500, Duration.ofMillis(200), BatchReceiver.AckMode.ACKNOWLEDGE)
+            .receive(batch -> Mono.fromRunnable(() -> log.info("bulk write of {} records", batch.size())))
+            .subscribe();
+    }
+}
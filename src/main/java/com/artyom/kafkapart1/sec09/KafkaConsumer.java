@@ -0,0 +1,72 @@
+package com.artyom.kafkapart1.sec09;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.artyom.kafkapart1.consumer.OffsetTracker;
+import com.artyom.kafkapart1.consumer.PartitionedProcessor;
+import com.artyom.kafkapart1.consumer.RebalanceLifecycle;
+import com.artyom.kafkapart1.metrics.KafkaMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    sec06 group member, but every owned partition is processed on its own worker.
+    an instance owning 6 partitions keeps up to 6 cores busy, order still holds per partition.
+    revoked partitions are drained and committed before they move, records queued for them are skipped.
+    handler time, records per partition, commit latency and the client metrics are logged every 10s
+ */
+public class KafkaConsumer {
+    private static final Logger log = LoggerFactory.getLogger(KafkaConsumer.class);
+
+    public static void strat(String instanceId) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, CooperativeStickyAssignor.class.getName(),
+            ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId
+        );
+
+        var tracker = new OffsetTracker();
+        var lifecycle = new RebalanceLifecycle(tracker, Duration.ofSeconds(10))
+            .onAssign(partitions -> log.info("warming up {}", partitions));
+        var metrics = new KafkaMetrics(new SimpleMeterRegistry());
+        var options = metrics.bind(lifecycle.bind(ReceiverOptions.<String, String>create(consumerConfig)), "demo-group")
+            .subscription(List.of("order-events"));
+
+        var cores = Runtime.getRuntime().availableProcessors();
+        new PartitionedProcessor<>(KafkaReceiver.create(options), tracker, PartitionedProcessor.Grouping.PARTITION,
+                                   cores, Duration.ofSeconds(1), metrics.receiver("demo-group"))
+            .process(r -> lifecycle.owns(r.receiverOffset().topicPartition())
+                ? Mono.fromRunnable(() -> log.debug("Processed: partition: {}, key: {}", r.partition(), r.key()))
+                : Mono.empty())
+            .subscribe();
+
+        Flux.interval(Duration.ofSeconds(10))
+            .subscribe(t -> {
+                var processing = metrics.registry().get("kafka.receiver.processing").timer();
+                var commit = metrics.registry().get("kafka.receiver.commit").timer();
+                log.info("processed: {}, mean handler time: {} ms, commits: {}, mean commit time: {} ms",
+                         processing.count(), processing.mean(TimeUnit.MILLISECONDS),
+                         commit.count(), commit.mean(TimeUnit.MILLISECONDS));
+            });
+    }
+
+    public static void main(String[] args) {
+        strat("1");
+    }
+}
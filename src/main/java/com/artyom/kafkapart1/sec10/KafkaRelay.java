@@ -0,0 +1,55 @@
+package com.artyom.kafkapart1.sec10;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.consumer.OffsetTracker;
+import com.artyom.kafkapart1.header.HeaderCodec;
+import com.artyom.kafkapart1.passthrough.PassThroughRelay;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.sender.KafkaSender;
+
+/*
+    mirror order-events ---> order-events-mirror for records sent by "some-client" (see sec04 headers)
+
+    payloads and headers stay bytes end to end
+ */
+public class KafkaRelay {
+    private static final Logger log = LoggerFactory.getLogger(KafkaRelay.class);
+
+    private static final Header CLIENT_ID = HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client");
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-relay",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, "1"
+        );
+
+        var tracker = new OffsetTracker();
+        var receiverOptions = PassThroughRelay.receiverOptions(consumerConfig)
+            .addRevokeListener(tracker::onRevoke)
+            .subscription(List.of("order-events"));
+
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.HIGH_THROUGHPUT));
+        var sender = KafkaSender.create(PassThroughRelay.senderOptions(factory));
+
+        new PassThroughRelay(KafkaReceiver.create(receiverOptions), sender, tracker,
+                             r -> HeaderCodec.matches(r.headers(), CLIENT_ID) ? "order-events-mirror" : null,
+                             Duration.ofSeconds(1))
+            .relay()
+            .doOnNext(count -> log.info("relayed {} records", count))
+            .doFinally(s -> sender.close())
+            .subscribe();
+    }
+}
@@ -0,0 +1,48 @@
+package com.artyom.kafkapart1.sec11;
+
+import java.time.Duration;
+
+import com.artyom.kafkapart1.producer.AdaptiveRateController;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SendStats;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+
+/*
+    goal: to demo adaptive rate control
+    starts at 1_000 records/s and follows broker back-pressure instead of a fixed Flux.interval
+ */
+public class KafkaProducer {
+    private static final Logger log = LoggerFactory.getLogger(KafkaProducer.class);
+
+    public static void main(String[] args) {
+
+        var properties = SenderProperties.of(ThroughputProfile.HIGH_THROUGHPUT)
+            .withMaxInFlight(10_000);
+
+        var options = new KafkaSenderFactory(properties)
+            .senderOptions(StringSerializer.class, StringSerializer.class)
+            .stopOnError(false);
+
+        var controller = new AdaptiveRateController(1_000, 100, 200_000, 1_000,
+                                                    Duration.ofMillis(50), Duration.ofSeconds(1));
+
+        var flux = Flux.range(1, 1_000_000)
+            .map(i -> new ProducerRecord<>("order-events", i.toString(), "order-" + i))
+            .map(record -> SenderRecord.create(record, record.key()));
+
+        KafkaSender<String, String> sender = KafkaSender.create(options);
+
+        SendStats.collect(controller.send(sender, flux))
+            .doOnNext(stats -> log.info("send completed: {}, final rate: {}/s", stats, (long) controller.rate()))
+            .doFinally(s -> sender.close())
+            .subscribe();
+    }
+}
@@ -0,0 +1,52 @@
+package com.artyom.kafkapart1.sec12;
+
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import com.artyom.kafkapart1.transaction.ExactlyOncePipeline;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+
+/*
+    goal: order-events ---> order-events-upper exactly once
+    up to 500 records and their offsets per transaction
+ */
+public class KafkaTransform {
+    private static final Logger log = LoggerFactory.getLogger(KafkaTransform.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-eos",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        );
+
+        var receiverOptions = ExactlyOncePipeline.exactlyOnce(ReceiverOptions.<String, String>create(consumerConfig), 500)
+            .subscription(List.of("order-events"));
+
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DURABLE));
+        var senderOptions = ExactlyOncePipeline.transactional(
+            factory.senderOptions(StringSerializer.class, StringSerializer.class), "order-events-upper-1");
+        var sender = KafkaSender.create(senderOptions);
+
+        new ExactlyOncePipeline<>(KafkaReceiver.create(receiverOptions), sender,
+                                  r -> new ProducerRecord<>("order-events-upper", r.key(), r.value().toUpperCase()))
+            .process()
+            .doOnNext(written -> log.info("committed transaction with {} records", written))
+            .doFinally(s -> sender.close())
+            .subscribe();
+    }
+}
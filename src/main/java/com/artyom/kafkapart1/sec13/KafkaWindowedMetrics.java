@@ -0,0 +1,55 @@
+package com.artyom.kafkapart1.sec13;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.order.OrderEvent;
+import com.artyom.kafkapart1.order.OrderEventFormat;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import com.artyom.kafkapart1.window.WindowSpec;
+import com.artyom.kafkapart1.window.WindowedAggregator;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    goal: order count / amount per customer (record key) per minute
+    order-events-typed ---> 1 minute tumbling windows on the record timestamp ---> order-metrics-per-minute
+
+    window state is in memory only, offsets are not committed: a restart recomputes from the beginning
+ */
+public class KafkaWindowedMetrics {
+    private static final Logger log = LoggerFactory.getLogger(KafkaWindowedMetrics.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, OrderEventFormat.BINARY.deserializer(),
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-metrics",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        );
+
+        var options = ReceiverOptions.<String, OrderEvent>create(consumerConfig)
+            .subscription(List.of("order-events-typed"));
+
+        var sender = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.HIGH_THROUGHPUT)).createStringSender();
+        var aggregator = new WindowedAggregator<String, OrderEvent>(WindowSpec.tumbling(Duration.ofMinutes(1)),
+                                                                   Duration.ofSeconds(5), OrderEvent::amountCents);
+
+        aggregator.aggregateTo(KafkaReceiver.create(options).receive(), sender,
+                               w -> new ProducerRecord<>("order-metrics-per-minute", null, w.start(), w.key(),
+                                                         "orders: " + w.count() + ", amount: " + w.sum()))
+            .doOnNext(r -> log.info("window {} written", r.correlationMetadata()))
+            .doFinally(s -> sender.close())
+            .subscribe();
+    }
+}
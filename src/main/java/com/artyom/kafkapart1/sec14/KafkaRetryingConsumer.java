@@ -0,0 +1,57 @@
+package com.artyom.kafkapart1.sec14;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import com.artyom.kafkapart1.retry.RetryHeaders;
+import com.artyom.kafkapart1.retry.RetryTopology;
+import com.artyom.kafkapart1.retry.RetryingReceiver;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+
+/*
+    goal: failing records do not block order-events
+    order-events ---> order-events-retry-1s ---> order-events-retry-10s ---> order-events-retry-1m ---> order-events-dlt
+ */
+public class KafkaRetryingConsumer {
+    private static final Logger log = LoggerFactory.getLogger(KafkaRetryingConsumer.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-retry",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        );
+
+        var topology = RetryTopology.of("order-events", Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1));
+        var sender = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DURABLE)).createStringSender();
+
+        var retrying = new RetryingReceiver<String, String>(topology, sender, r -> {
+            if (r.value().endsWith("7")) {
+                return Mono.error(new IllegalStateException("cannot process " + r.value()));
+            }
+            log.info("Received: topic: {}, attempt: {}, value: {}", r.topic(), RetryHeaders.attempt(r.headers()), r.value());
+            return Mono.empty();
+        });
+
+        var options = retrying.bind(ReceiverOptions.<String, String>create(consumerConfig))
+            .subscription(topology.consumedTopics());
+
+        retrying.run(KafkaReceiver.create(options))
+            .filter(outcome -> outcome == RetryingReceiver.Outcome.DEAD_LETTERED)
+            .doOnNext(outcome -> log.warn("record sent to {}", topology.deadLetterTopic()))
+            .doFinally(s -> sender.close())
+            .subscribe();
+    }
+}
@@ -0,0 +1,32 @@
+package com.artyom.kafkapart1.sec15;
+
+import java.util.Map;
+
+import com.artyom.kafkapart1.ardis.RelationGraphUpdater;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.kafka.receiver.KafkaReceiver;
+
+/*
+    goal: relationship shortcuts of running explorations, visible before the exploration is DONE
+    relation-deltas (key: projectId) ---> graph per project ---> changed shortcuts only
+ */
+public class KafkaRelationGraph {
+    private static final Logger log = LoggerFactory.getLogger(KafkaRelationGraph.class);
+
+    public static void main(String[] args) {
+
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092",
+            ConsumerConfig.GROUP_ID_CONFIG, "demo-group-relations"
+        );
+
+        var updater = new RelationGraphUpdater();
+        var options = RelationGraphUpdater.receiverOptions(consumerConfig, "relation-deltas");
+
+        updater.run(KafkaReceiver.create(options))
+            .subscribe(update -> log.info("project: {}, status: {}, version: {}, changed: {}",
+                                          update.projectId(), update.status(), update.version(), update.shortcuts()));
+    }
+}
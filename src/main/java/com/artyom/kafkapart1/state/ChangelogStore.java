@@ -0,0 +1,212 @@
+package com.artyom.kafkapart1.state;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.artyom.kafkapart1.replay.ReplayEngine;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serde;
+import org.apache.kafka.common.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    local key-value state per input partition, backed by a compacted changelog topic
+
+    input partition p <---> changelog partition p <---> one OffHeapKeyValueStore
+
+    put     ---> applied locally, then written to the changelog. the source offset is acknowledged
+                 once the changelog write is acked, so committed input is always covered by the changelog
+    assign  ---> the assigned partitions are restored from the changelog before records are handed out.
+                 a store kept from an earlier assignment only catches up from the last changelog
+                 offset it has seen, a new one reads its partition from the beginning
+    values are kept serialized, restore copies changelog bytes without deserializing them.
+    a null value deletes the key and writes a tombstone.
+    a failed changelog write ends the writes for good: the source offsets after it are never acknowledged,
+    put throws from then on and writes() errors, so the pipeline stops instead of drifting from the changelog
+ */
+public class ChangelogStore<K, V> {
+    private static final Logger log = LoggerFactory.getLogger(ChangelogStore.class);
+
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(100);
+
+    private final String changelogTopic;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Deserializer<V> valueDeserializer;
+    private final Map<String, Object> restoreConfig;
+    private final Map<Integer, PartitionState> partitions = new ConcurrentHashMap<>();
+    private final Sinks.Many<SenderRecord<byte[], byte[], ReceiverOffset>> changelog =
+        Sinks.many().unicast().onBackpressureBuffer();
+    private final Mono<Void> writes;
+    private volatile Throwable failure;
+
+    public ChangelogStore(String changelogTopic, Serde<K> keySerde, Serde<V> valueSerde,
+                          KafkaSender<byte[], byte[]> sender, Map<String, Object> consumerConfig) {
+        this.changelogTopic = changelogTopic;
+        this.keySerializer = keySerde.serializer();
+        this.valueSerializer = valueSerde.serializer();
+        this.valueDeserializer = valueSerde.deserializer();
+        this.restoreConfig = ReplayEngine.bulkReadConfig(consumerConfig);
+        this.restoreConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        this.writes = sender.send(changelog.asFlux())
+            .doOnNext(this::written)
+            .doOnError(e -> {
+                failure = e;
+                log.error("changelog {} write failed", changelogTopic, e);
+            })
+            .then()
+            .cache();
+        this.writes.subscribe(v -> {}, e -> {});
+    }
+
+    public static NewTopic changelogTopic(String name, int partitions, short replicationFactor) {
+        return new NewTopic(name, partitions, replicationFactor)
+            .configs(Map.of(TopicConfig.CLEANUP_POLICY_CONFIG, TopicConfig.CLEANUP_POLICY_COMPACT));
+    }
+
+    /*
+        restores on assignment, the input topic must have the same partition count as the changelog
+     */
+    public <IK, IV> ReceiverOptions<IK, IV> bind(ReceiverOptions<IK, IV> options) {
+        return options.addAssignListener(this::onAssign);
+    }
+
+    public V get(int partition, K key) {
+        var bytes = state(partition).store.get(keySerializer.serialize(changelogTopic, key));
+        return bytes == null ? null : valueDeserializer.deserialize(changelogTopic, bytes);
+    }
+
+    /*
+        source may be null when there is no input offset to acknowledge
+     */
+    public void put(int partition, K key, V value, ReceiverOffset source) {
+        if (failure != null) {
+            throw new IllegalStateException("changelog " + changelogTopic + " write failed", failure);
+        }
+        var store = state(partition).store;
+        var keyBytes = keySerializer.serialize(changelogTopic, key);
+        byte[] valueBytes = null;
+        if (value == null) {
+            store.delete(keyBytes);
+        } else {
+            valueBytes = valueSerializer.serialize(changelogTopic, value);
+            store.put(keyBytes, valueBytes);
+        }
+        var record = new ProducerRecord<>(changelogTopic, partition, keyBytes, valueBytes);
+        changelog.emitNext(SenderRecord.create(record, source), Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+    }
+
+    public int size(int partition) {
+        return state(partition).store.size();
+    }
+
+    /*
+        returns the number of changelog records applied
+     */
+    public long restore(Collection<Integer> partitionNumbers) {
+        var positions = new HashMap<TopicPartition, PartitionState>();
+        for (var partition : partitionNumbers) {
+            positions.put(new TopicPartition(changelogTopic, partition),
+                          partitions.computeIfAbsent(partition, p -> new PartitionState()));
+        }
+        try (var consumer = new KafkaConsumer<>(restoreConfig, new ByteArrayDeserializer(), new ByteArrayDeserializer())) {
+            var ends = consumer.endOffsets(positions.keySet());
+            var pending = new HashMap<TopicPartition, Long>();
+            ends.forEach((tp, end) -> {
+                if (positions.get(tp).nextOffset.get() < end) {
+                    pending.put(tp, end);
+                }
+            });
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            consumer.assign(pending.keySet());
+            pending.keySet().forEach(tp -> consumer.seek(tp, positions.get(tp).nextOffset.get()));
+
+            long applied = 0;
+            long start = System.nanoTime();
+            while (!pending.isEmpty()) {
+                for (var record : consumer.poll(POLL_TIMEOUT)) {
+                    var store = positions.get(new TopicPartition(record.topic(), record.partition())).store;
+                    if (record.value() == null) {
+                        store.delete(record.key());
+                    } else {
+                        store.put(record.key(), record.value());
+                    }
+                    applied++;
+                }
+                pending.entrySet().removeIf(e -> {
+                    if (consumer.position(e.getKey()) < e.getValue()) {
+                        return false;
+                    }
+                    positions.get(e.getKey()).nextOffset.accumulateAndGet(e.getValue(), Math::max);
+                    return true;
+                });
+            }
+            log.info("restored {} changelog records of {} in {} ms", applied, partitionNumbers,
+                     Duration.ofNanos(System.nanoTime() - start).toMillis());
+            return applied;
+        }
+    }
+
+    /*
+        errors with the first failed changelog write, merge it into the pipeline that calls put.
+        completes after close once every write is acked
+     */
+    public Mono<Void> writes() {
+        return writes;
+    }
+
+    /*
+        completes once every changelog write issued so far is acked
+     */
+    public Mono<Void> close() {
+        changelog.emitComplete(Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        return writes;
+    }
+
+    private void onAssign(Collection<ReceiverPartition> assigned) {
+        restore(assigned.stream().map(p -> p.topicPartition().partition()).toList());
+    }
+
+    private void written(SenderResult<ReceiverOffset> result) {
+        var metadata = result.recordMetadata();
+        partitions.get(metadata.partition()).nextOffset.accumulateAndGet(metadata.offset() + 1, Math::max);
+        if (result.correlationMetadata() != null) {
+            result.correlationMetadata().acknowledge();
+        }
+    }
+
+    private PartitionState state(int partition) {
+        var state = partitions.get(partition);
+        if (state == null) {
+            throw new IllegalStateException("partition " + partition + " of " + changelogTopic + " is not restored");
+        }
+        return state;
+    }
+
+    private static class PartitionState {
+        private final OffHeapKeyValueStore store = new OffHeapKeyValueStore();
+        private final AtomicLong nextOffset = new AtomicLong();
+    }
+}
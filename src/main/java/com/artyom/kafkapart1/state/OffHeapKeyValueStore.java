@@ -0,0 +1,199 @@
+package com.artyom.kafkapart1.state;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/*
+    byte[] ---> byte[] store whose keys and values live outside the java heap
+
+    arena:  direct buffer, entries are appended as [key length][value length][key][value]
+    index:  open addressing long[], each slot packs (key hash << 32 | arena position + 1), 0 is empty
+
+    an overwrite or delete only leaves dead bytes behind, once the arena is full the live
+    entries are copied into a fresh arena (grown when more than half of it is live).
+    not thread safe, one writer per store
+ */
+public class OffHeapKeyValueStore {
+
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    private ByteBuffer arena;
+    private int writePosition;
+    private int deadBytes;
+    private long[] slots;
+    private int mask;
+    private int size;
+
+    public OffHeapKeyValueStore(int initialArenaBytes, int expectedEntries) {
+        this.arena = ByteBuffer.allocateDirect(initialArenaBytes);
+        this.slots = new long[Integer.highestOneBit(Math.max(16, expectedEntries * 2 - 1)) << 1];
+        this.mask = slots.length - 1;
+    }
+
+    public OffHeapKeyValueStore() {
+        this(1024 * 1024, 1024);
+    }
+
+    public byte[] get(byte[] key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        int position = position(slots[slot]);
+        var value = new byte[arena.getInt(position + Integer.BYTES)];
+        arena.get(position + HEADER + key.length, value);
+        return value;
+    }
+
+    public void put(byte[] key, byte[] value) {
+        int hash = hash(key);
+        ensureCapacity(HEADER + key.length + value.length);
+        int position = append(key, value);
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            deadBytes += entrySize(position(slots[slot]));
+            slots[slot] = slot(hash, position);
+            return;
+        }
+        if ((size + 1) * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        insert(slot(hash, position));
+        size++;
+    }
+
+    public boolean delete(byte[] key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return false;
+        }
+        deadBytes += entrySize(position(slots[slot]));
+        removeSlot(slot);
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long offHeapBytes() {
+        return arena.capacity();
+    }
+
+    private int find(byte[] key, int hash) {
+        for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+            long slot = slots[i];
+            if (slot == 0) {
+                return -1;
+            }
+            if ((int) (slot >>> 32) == hash && keyEquals(position(slot), key)) {
+                return i;
+            }
+        }
+    }
+
+    private void insert(long slot) {
+        int i = spread((int) (slot >>> 32)) & mask;
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        slots[i] = slot;
+    }
+
+    /*
+        backward shift deletion, keeps every probe chain without tombstones
+     */
+    private void removeSlot(int hole) {
+        for (int i = (hole + 1) & mask; slots[i] != 0; i = (i + 1) & mask) {
+            int home = spread((int) (slots[i] >>> 32)) & mask;
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                slots[hole] = slots[i];
+                hole = i;
+            }
+        }
+        slots[hole] = 0;
+    }
+
+    private boolean keyEquals(int position, byte[] key) {
+        if (arena.getInt(position) != key.length) {
+            return false;
+        }
+        return arena.slice(position + HEADER, key.length).mismatch(ByteBuffer.wrap(key)) == -1;
+    }
+
+    private int append(byte[] key, byte[] value) {
+        int position = writePosition;
+        arena.putInt(position, key.length);
+        arena.putInt(position + Integer.BYTES, value.length);
+        arena.put(position + HEADER, key);
+        arena.put(position + HEADER + key.length, value);
+        writePosition += HEADER + key.length + value.length;
+        return position;
+    }
+
+    private void ensureCapacity(int entryBytes) {
+        if (writePosition + entryBytes <= arena.capacity()) {
+            return;
+        }
+        long live = (long) writePosition - deadBytes + entryBytes;
+        long capacity = arena.capacity();
+        while (live * 2 > capacity) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("store exceeds 2GB: " + live + " live bytes");
+        }
+        compact((int) capacity);
+    }
+
+    private void compact(int capacity) {
+        var previous = arena;
+        arena = ByteBuffer.allocateDirect(capacity);
+        writePosition = 0;
+        deadBytes = 0;
+        for (int i = 0; i < slots.length; i++) {
+            long slot = slots[i];
+            if (slot == 0) {
+                continue;
+            }
+            int from = position(slot);
+            int length = HEADER + previous.getInt(from) + previous.getInt(from + Integer.BYTES);
+            arena.put(writePosition, previous, from, length);
+            slots[i] = slot((int) (slot >>> 32), writePosition);
+            writePosition += length;
+        }
+    }
+
+    private void rehash(int length) {
+        var previous = slots;
+        slots = new long[length];
+        mask = length - 1;
+        for (long slot : previous) {
+            if (slot != 0) {
+                insert(slot);
+            }
+        }
+    }
+
+    private int entrySize(int position) {
+        return HEADER + arena.getInt(position) + arena.getInt(position + Integer.BYTES);
+    }
+
+    private static long slot(int hash, int position) {
+        return ((long) hash << 32) | (position + 1L);
+    }
+
+    private static int position(long slot) {
+        return (int) slot - 1;
+    }
+
+    private static int hash(byte[] key) {
+        return Arrays.hashCode(key);
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,58 @@
+package com.artyom.kafkapart1.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    replacement for log.info per record: sampled, switchable per topic at runtime
+    and written to the "record-trace" logger, which logback.xml routes through a bounded
+    non-blocking async appender (full queue drops traces instead of stalling the pipeline)
+
+    topics are off until enabled, see /actuator/recordtracing
+ */
+@Component
+public class RecordTracer {
+    private static final Logger trace = LoggerFactory.getLogger("record-trace");
+
+    private final Map<String, Sampling> topics = new ConcurrentHashMap<>();
+
+    public void enable(String topic, Sampling sampling) {
+        topics.put(topic, sampling);
+    }
+
+    public void disable(String topic) {
+        topics.remove(topic);
+    }
+
+    public Map<String, String> enabled() {
+        return topics.entrySet().stream()
+            .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().describe()));
+    }
+
+    public boolean sampled(String topic, int partition) {
+        var sampling = topics.get(topic);
+        return sampling != null && sampling.sample(partition) && trace.isInfoEnabled();
+    }
+
+    public void trace(ConsumerRecord<?, ?> record) {
+        if (sampled(record.topic(), record.partition())) {
+            trace.info("Received: topic: {}, partition: {}, offset: {}, key: {}, value: {}",
+                       record.topic(), record.partition(), record.offset(), record.key(), record.value());
+        }
+    }
+
+    public void trace(SenderResult<?> result) {
+        var metadata = result.recordMetadata();
+        if (metadata != null && sampled(metadata.topic(), metadata.partition())) {
+            trace.info("Sent: topic: {}, partition: {}, offset: {}, correlation id: {}",
+                       metadata.topic(), metadata.partition(), metadata.offset(), result.correlationMetadata());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.artyom.kafkapart1.tracing;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/*
+    GET    /actuator/recordtracing                                  enabled topics
+    POST   /actuator/recordtracing/order-events {"everyNth": 1000}
+    POST   /actuator/recordtracing/order-events {"perSecond": 10}
+    DELETE /actuator/recordtracing/order-events
+ */
+@Component
+@Endpoint(id = "recordtracing")
+public class RecordTracingEndpoint {
+
+    private final RecordTracer tracer;
+
+    public RecordTracingEndpoint(RecordTracer tracer) {
+        this.tracer = tracer;
+    }
+
+    @ReadOperation
+    public Map<String, String> topics() {
+        return tracer.enabled();
+    }
+
+    /*
+        a non positive value is rejected with 400 before it reaches the consumer threads
+     */
+    @WriteOperation
+    public Map<String, String> enable(@Selector String topic, @Nullable Long everyNth, @Nullable Integer perSecond) {
+        if ((everyNth != null && everyNth <= 0) || (perSecond != null && perSecond <= 0)) {
+            throw new InvalidEndpointRequestException("everyNth and perSecond must be positive",
+                                                      "everyNth=" + everyNth + ", perSecond=" + perSecond);
+        }
+        if (perSecond != null) {
+            tracer.enable(topic, Sampling.perPartitionPerSecond(perSecond));
+        } else {
+            tracer.enable(topic, Sampling.everyNth(everyNth == null ? 1000 : everyNth));
+        }
+        return tracer.enabled();
+    }
+
+    @DeleteOperation
+    public Map<String, String> disable(@Selector String topic) {
+        tracer.disable(topic);
+        return tracer.enabled();
+    }
+}
@@ -0,0 +1,70 @@
+package com.artyom.kafkapart1.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+    decides whether one record of a topic gets traced. the decision is a counter increment
+    or a window check, so untraced records cost next to nothing
+ */
+public interface Sampling {
+
+    boolean sample(int partition);
+
+    String describe();
+
+    /*
+        1 of every n records of the topic
+     */
+    static Sampling everyNth(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("everyNth must be positive: " + n);
+        }
+        var counter = new AtomicLong();
+        return new Sampling() {
+            @Override
+            public boolean sample(int partition) {
+                return counter.getAndIncrement() % n == 0;
+            }
+
+            @Override
+            public String describe() {
+                return "1-in-" + n;
+            }
+        };
+    }
+
+    /*
+        at most permits records per partition per second
+     */
+    static Sampling perPartitionPerSecond(int permits) {
+        if (permits <= 0) {
+            throw new IllegalArgumentException("perSecond must be positive: " + permits);
+        }
+        Map<Integer, AtomicLong> windows = new ConcurrentHashMap<>();
+        return new Sampling() {
+            @Override
+            public boolean sample(int partition) {
+                // high 32 bits: second of the window, low 32 bits: records sampled in it
+                var window = windows.computeIfAbsent(partition, p -> new AtomicLong());
+                long second = System.currentTimeMillis() / 1000;
+                while (true) {
+                    long current = window.get();
+                    long next = (current >>> 32) == second ? current + 1 : (second << 32) | 1;
+                    if ((next & 0xFFFFFFFFL) > permits) {
+                        return false;
+                    }
+                    if (window.compareAndSet(current, next)) {
+                        return true;
+                    }
+                }
+            }
+
+            @Override
+            public String describe() {
+                return permits + "/s per partition";
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package com.artyom.kafkapart1.transaction;
+
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+
+/*
+    consume ---> transform ---> produce with exactly-once semantics
+
+    every poll is one transaction, so max.poll.records is the batch size:
+      begin + sendOffsets(next offset per partition, group generation) ---> send transformed records ---> commit
+    the output records and the consumer offsets become visible together or not at all.
+    offsets are never acknowledged on the receiver, the only commit path is the transaction.
+
+    the transform runs inside the open transaction and returns null to drop a record,
+    its offset is still committed. a failed transaction is aborted and the error terminates
+    the flux, subscribing again starts a new consumer from the last committed transaction
+ */
+public class ExactlyOncePipeline<K, V, KO, VO> {
+    private static final Logger log = LoggerFactory.getLogger(ExactlyOncePipeline.class);
+
+    private final KafkaReceiver<K, V> receiver;
+    private final KafkaSender<KO, VO> sender;
+    private final Function<ConsumerRecord<K, V>, ProducerRecord<KO, VO>> transform;
+
+    public ExactlyOncePipeline(KafkaReceiver<K, V> receiver, KafkaSender<KO, VO> sender,
+                               Function<ConsumerRecord<K, V>, ProducerRecord<KO, VO>> transform) {
+        this.receiver = receiver;
+        this.sender = sender;
+        this.transform = transform;
+    }
+
+    /*
+        input side: up to maxBatchSize records per transaction, never reads aborted upstream records
+     */
+    public static <K, V> ReceiverOptions<K, V> exactlyOnce(ReceiverOptions<K, V> options, int maxBatchSize) {
+        return readCommitted(options)
+            .consumerProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxBatchSize);
+    }
+
+    /*
+        consumers of the output topic must read committed, otherwise they see aborted records
+     */
+    public static <K, V> ReceiverOptions<K, V> readCommitted(ReceiverOptions<K, V> options) {
+        return options.consumerProperty(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+    }
+
+    /*
+        the transactional id must be stable per pipeline instance, a restarted instance
+        with the same id fences the zombie one
+     */
+    public static <K, V> SenderOptions<K, V> transactional(SenderOptions<K, V> options, String transactionalId) {
+        return options
+            .producerProperty(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId)
+            .producerProperty(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true)
+            .producerProperty(ProducerConfig.ACKS_CONFIG, "all");
+    }
+
+    /*
+        emits the number of records written by every committed transaction
+     */
+    public Flux<Long> process() {
+        var transactions = sender.transactionManager();
+        return receiver.receiveExactlyOnce(transactions)
+            .concatMap(batch -> sender.send(batch.<SenderRecord<KO, VO, Long>>handle((record, sink) -> {
+                        var target = transform.apply(record);
+                        if (target != null) {
+                            sink.next(SenderRecord.create(target, record.offset()));
+                        }
+                    }))
+                .count()
+                .flatMap(written -> transactions.commit().then(Mono.just(written)))
+                .onErrorResume(e -> transactions.abort().then(Mono.error(e))))
+            .doOnError(e -> log.warn("transaction aborted, pipeline stopped", e));
+    }
+}
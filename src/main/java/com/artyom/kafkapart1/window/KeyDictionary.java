@@ -0,0 +1,88 @@
+package com.artyom.kafkapart1.window;
+
+import java.util.Arrays;
+
+/*
+    key ---> dense int id, so window state can be indexed by int instead of by key object.
+    ids are never released, the dictionary grows with the number of distinct keys.
+    a null key (valid on a kafka record) gets an id of its own like any other key
+ */
+class KeyDictionary<K> {
+
+    private Object[] keys = new Object[1024];
+    private int[] ids = new int[1024];
+    private Object[] byId = new Object[512];
+    private int size;
+    private int nullId = -1;
+
+    int id(K key) {
+        if (key == null) {
+            if (nullId < 0) {
+                nullId = register(null);
+            }
+            return nullId;
+        }
+        int mask = keys.length - 1;
+        for (int i = spread(key.hashCode()) & mask; ; i = (i + 1) & mask) {
+            var existing = keys[i];
+            if (existing == null) {
+                return add(key, i);
+            }
+            if (existing.equals(key)) {
+                return ids[i];
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    K key(int id) {
+        return (K) byId[id];
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int add(K key, int index) {
+        int id = register(key);
+        keys[index] = key;
+        ids[index] = id;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        return id;
+    }
+
+    private int register(K key) {
+        int id = size++;
+        if (id == byId.length) {
+            byId = Arrays.copyOf(byId, id * 2);
+        }
+        byId[id] = key;
+        return id;
+    }
+
+    private void rehash(int length) {
+        var previousKeys = keys;
+        var previousIds = ids;
+        keys = new Object[length];
+        ids = new int[length];
+        int mask = length - 1;
+        for (int p = 0; p < previousKeys.length; p++) {
+            if (previousKeys[p] == null) {
+                continue;
+            }
+            int i = spread(previousKeys[p].hashCode()) & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = previousKeys[p];
+            ids[i] = previousIds[p];
+        }
+    }
+
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,8 @@
+package com.artyom.kafkapart1.window;
+
+/*
+    final aggregate of one closed window, start inclusive, end exclusive.
+    session windows end one millisecond after their last record
+ */
+public record WindowResult<K>(K key, long start, long end, long count, long sum, long min, long max) {
+}
@@ -0,0 +1,38 @@
+package com.artyom.kafkapart1.window;
+
+import java.time.Duration;
+
+/*
+    TUMBLING   fixed size, windows do not overlap              [0, size) [size, 2 * size) ...
+    HOPPING    fixed size, a new window starts every advance   [0, size) [advance, advance + size) ...
+    SESSION    per key, closes after gap without records
+ */
+public record WindowSpec(Type type, long sizeMillis, long advanceMillis, long gapMillis) {
+
+    public enum Type {
+        TUMBLING,
+        HOPPING,
+        SESSION
+    }
+
+    public WindowSpec {
+        if (type != Type.SESSION && (sizeMillis <= 0 || advanceMillis <= 0 || advanceMillis > sizeMillis)) {
+            throw new IllegalArgumentException("invalid window size / advance: " + sizeMillis + " / " + advanceMillis);
+        }
+        if (type == Type.SESSION && gapMillis <= 0) {
+            throw new IllegalArgumentException("invalid session gap: " + gapMillis);
+        }
+    }
+
+    public static WindowSpec tumbling(Duration size) {
+        return new WindowSpec(Type.TUMBLING, size.toMillis(), size.toMillis(), 0);
+    }
+
+    public static WindowSpec hopping(Duration size, Duration advance) {
+        return new WindowSpec(Type.HOPPING, size.toMillis(), advance.toMillis(), 0);
+    }
+
+    public static WindowSpec session(Duration gap) {
+        return new WindowSpec(Type.SESSION, 0, 0, gap.toMillis());
+    }
+}
@@ -0,0 +1,273 @@
+package com.artyom.kafkapart1.window;
+
+import java.util.Arrays;
+
+/*
+    open window aggregates in parallel primitive arrays, no object per window
+
+    a slot is addressed by (key id, window key): the window start for time windows,
+    0 for sessions (one open session per key). closeAt is the watermark that finalizes it.
+
+    every closeAt is also pushed on a min-heap of (closeAt, key id, window key), so sweep only touches
+    the windows that close. a session that grows leaves its older entry behind, such an entry no longer
+    matches the slot's closeAt and is skipped when it comes up. closed slots are removed in place with
+    backward-shift deletion
+ */
+class WindowTable {
+
+    interface ClosedWindow {
+        void accept(int keyId, long start, long end, long count, long sum, long min, long max);
+    }
+
+    private int[] keyIds;
+    private long[] windowKeys;
+    private long[] starts;
+    private long[] ends;
+    private long[] closeAt;
+    private long[] counts;
+    private long[] sums;
+    private long[] mins;
+    private long[] maxs;
+    private int mask;
+    private int size;
+
+    private long[] heapCloseAt = new long[16];
+    private int[] heapKeyIds = new int[16];
+    private long[] heapWindowKeys = new long[16];
+    private int heapSize;
+
+    WindowTable(int expectedWindows) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedWindows * 2 - 1)) << 1);
+    }
+
+    /*
+        index of the (keyId, windowKey) slot, inserted empty (count 0) when missing.
+        an empty slot counts as free, so every slot() has to be followed by add()
+     */
+    int slot(int keyId, long windowKey) {
+        if ((size + 1) * 2 > keyIds.length) {
+            rehash(keyIds.length * 2);
+        }
+        for (int i = index(keyId, windowKey); ; i = (i + 1) & mask) {
+            if (counts[i] == 0) {
+                keyIds[i] = keyId;
+                windowKeys[i] = windowKey;
+                mins[i] = Long.MAX_VALUE;
+                maxs[i] = Long.MIN_VALUE;
+                size++;
+                return i;
+            }
+            if (keyIds[i] == keyId && windowKeys[i] == windowKey) {
+                return i;
+            }
+        }
+    }
+
+    boolean isNew(int slot) {
+        return counts[slot] == 0;
+    }
+
+    long start(int slot) {
+        return starts[slot];
+    }
+
+    long end(int slot) {
+        return ends[slot];
+    }
+
+    void bounds(int slot, long start, long end, long closeAt) {
+        starts[slot] = start;
+        ends[slot] = end;
+        if (this.closeAt[slot] != closeAt || counts[slot] == 0) {
+            this.closeAt[slot] = closeAt;
+            push(closeAt, keyIds[slot], windowKeys[slot]);
+        }
+    }
+
+    void add(int slot, long value) {
+        counts[slot]++;
+        sums[slot] += value;
+        mins[slot] = Math.min(mins[slot], value);
+        maxs[slot] = Math.max(maxs[slot], value);
+    }
+
+    /*
+        hands the slot out as closed and resets it in place for a new window with the same key
+     */
+    void emitAndReset(int slot, ClosedWindow closed) {
+        emit(slot, closed);
+        counts[slot] = 0;
+        sums[slot] = 0;
+        mins[slot] = Long.MAX_VALUE;
+        maxs[slot] = Long.MIN_VALUE;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /*
+        emits and removes every window with closeAt <= watermark
+     */
+    void sweep(long watermark, ClosedWindow closed) {
+        while (heapSize > 0 && heapCloseAt[0] <= watermark) {
+            long due = heapCloseAt[0];
+            int keyId = heapKeyIds[0];
+            long windowKey = heapWindowKeys[0];
+            pop();
+            int slot = find(keyId, windowKey);
+            if (slot >= 0 && closeAt[slot] == due) {
+                emit(slot, closed);
+                remove(slot);
+            }
+        }
+    }
+
+    private void emit(int slot, ClosedWindow closed) {
+        closed.accept(keyIds[slot], starts[slot], ends[slot], counts[slot], sums[slot], mins[slot], maxs[slot]);
+    }
+
+    private void copy(WindowTable from, int source) {
+        int i = index(from.keyIds[source], from.windowKeys[source]);
+        while (counts[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        keyIds[i] = from.keyIds[source];
+        windowKeys[i] = from.windowKeys[source];
+        starts[i] = from.starts[source];
+        ends[i] = from.ends[source];
+        closeAt[i] = from.closeAt[source];
+        counts[i] = from.counts[source];
+        sums[i] = from.sums[source];
+        mins[i] = from.mins[source];
+        maxs[i] = from.maxs[source];
+        size++;
+    }
+
+    private void rehash(int length) {
+        var previous = new WindowTable(0);
+        previous.keyIds = keyIds;
+        previous.windowKeys = windowKeys;
+        previous.starts = starts;
+        previous.ends = ends;
+        previous.closeAt = closeAt;
+        previous.counts = counts;
+        previous.sums = sums;
+        previous.mins = mins;
+        previous.maxs = maxs;
+        allocate(length);
+        size = 0;
+        for (int i = 0; i < previous.keyIds.length; i++) {
+            if (previous.counts[i] != 0) {
+                copy(previous, i);
+            }
+        }
+    }
+
+    private int find(int keyId, long windowKey) {
+        for (int i = index(keyId, windowKey); counts[i] != 0; i = (i + 1) & mask) {
+            if (keyIds[i] == keyId && windowKeys[i] == windowKey) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+        backward-shift deletion: later slots of the probe chain move into the gap, no tombstones
+     */
+    private void remove(int slot) {
+        int gap = slot;
+        for (int i = (gap + 1) & mask; counts[i] != 0; i = (i + 1) & mask) {
+            int home = index(keyIds[i], windowKeys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                move(i, gap);
+                gap = i;
+            }
+        }
+        counts[gap] = 0;
+        sums[gap] = 0;
+        mins[gap] = Long.MAX_VALUE;
+        maxs[gap] = Long.MIN_VALUE;
+        size--;
+    }
+
+    private void move(int from, int to) {
+        keyIds[to] = keyIds[from];
+        windowKeys[to] = windowKeys[from];
+        starts[to] = starts[from];
+        ends[to] = ends[from];
+        closeAt[to] = closeAt[from];
+        counts[to] = counts[from];
+        sums[to] = sums[from];
+        mins[to] = mins[from];
+        maxs[to] = maxs[from];
+    }
+
+    private void push(long due, int keyId, long windowKey) {
+        if (heapSize == heapCloseAt.length) {
+            heapCloseAt = Arrays.copyOf(heapCloseAt, heapSize * 2);
+            heapKeyIds = Arrays.copyOf(heapKeyIds, heapSize * 2);
+            heapWindowKeys = Arrays.copyOf(heapWindowKeys, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapCloseAt[parent] <= due) {
+                break;
+            }
+            heapCloseAt[i] = heapCloseAt[parent];
+            heapKeyIds[i] = heapKeyIds[parent];
+            heapWindowKeys[i] = heapWindowKeys[parent];
+            i = parent;
+        }
+        heapCloseAt[i] = due;
+        heapKeyIds[i] = keyId;
+        heapWindowKeys[i] = windowKey;
+    }
+
+    private void pop() {
+        int last = --heapSize;
+        long due = heapCloseAt[last];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= last) {
+                break;
+            }
+            if (child + 1 < last && heapCloseAt[child + 1] < heapCloseAt[child]) {
+                child++;
+            }
+            if (heapCloseAt[child] >= due) {
+                break;
+            }
+            heapCloseAt[i] = heapCloseAt[child];
+            heapKeyIds[i] = heapKeyIds[child];
+            heapWindowKeys[i] = heapWindowKeys[child];
+            i = child;
+        }
+        heapCloseAt[i] = due;
+        heapKeyIds[i] = heapKeyIds[last];
+        heapWindowKeys[i] = heapWindowKeys[last];
+    }
+
+    private void allocate(int length) {
+        keyIds = new int[length];
+        windowKeys = new long[length];
+        starts = new long[length];
+        ends = new long[length];
+        closeAt = new long[length];
+        counts = new long[length];
+        sums = new long[length];
+        mins = new long[length];
+        maxs = new long[length];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Arrays.fill(maxs, Long.MIN_VALUE);
+        mask = length - 1;
+    }
+
+    private int index(int keyId, long windowKey) {
+        long h = (keyId * 0x9E3779B97F4A7C15L) ^ windowKey * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+}
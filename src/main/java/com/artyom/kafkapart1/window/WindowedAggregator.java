@@ -0,0 +1,153 @@
+package com.artyom.kafkapart1.window;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+
+/*
+    count / sum / min / max of a long value per key and window, on event time (record timestamp)
+
+    watermark = highest timestamp seen - allowed lateness
+      - a window is emitted once the watermark passes its end (sessions: last record + gap),
+        so results leave incrementally while the stream runs
+      - a record whose window is already closed is dropped and counted as late
+
+    keys are mapped to int ids once, window state lives in primitive arrays (WindowTable).
+    sessions keep one open session per key: a record older than the open session by more
+    than the gap is treated as late.
+    not thread safe, the records of one aggregator must arrive sequentially
+ */
+public class WindowedAggregator<K, V> {
+
+    private final WindowSpec spec;
+    private final long allowedLateness;
+    private final ToLongFunction<V> value;
+    private final KeyDictionary<K> keys = new KeyDictionary<>();
+    private final WindowTable windows = new WindowTable(1024);
+
+    private long maxTimestamp = Long.MIN_VALUE;
+    private long lateRecords;
+
+    public WindowedAggregator(WindowSpec spec, Duration allowedLateness, ToLongFunction<V> value) {
+        this.spec = spec;
+        this.allowedLateness = allowedLateness.toMillis();
+        this.value = value;
+    }
+
+    public Flux<WindowResult<K>> aggregate(Flux<? extends ConsumerRecord<K, V>> records) {
+        return records
+            .concatMapIterable(r -> add(r.key(), r.timestamp(), r.value()))
+            .concatWith(Flux.defer(() -> Flux.fromIterable(flush())));
+    }
+
+    /*
+        windows are written as they close, correlated with the window start
+     */
+    public <KO, VO> Flux<SenderResult<Long>> aggregateTo(Flux<? extends ConsumerRecord<K, V>> records,
+                                                        KafkaSender<KO, VO> sender,
+                                                        Function<WindowResult<K>, ProducerRecord<KO, VO>> output) {
+        return sender.send(aggregate(records).map(result -> SenderRecord.create(output.apply(result), result.start())));
+    }
+
+    /*
+        returns the windows closed by this record
+     */
+    public List<WindowResult<K>> add(K key, long timestamp, V record) {
+        long watermark = watermark();
+        var closed = new ArrayList<WindowResult<K>>(0);
+        int keyId = keys.id(key);
+        long amount = value.applyAsLong(record);
+
+        switch (spec.type()) {
+            case TUMBLING, HOPPING -> addToTimeWindows(keyId, timestamp, amount, watermark);
+            case SESSION -> addToSession(keyId, timestamp, amount, watermark, closed);
+        }
+
+        maxTimestamp = Math.max(maxTimestamp, timestamp);
+        windows.sweep(watermark(), collector(closed));
+        return closed;
+    }
+
+    /*
+        emits every open window, e.g. when the input ends
+     */
+    public List<WindowResult<K>> flush() {
+        var closed = new ArrayList<WindowResult<K>>();
+        windows.sweep(Long.MAX_VALUE, collector(closed));
+        return closed;
+    }
+
+    public long lateRecords() {
+        return lateRecords;
+    }
+
+    public int openWindows() {
+        return windows.size();
+    }
+
+    private void addToTimeWindows(int keyId, long timestamp, long amount, long watermark) {
+        long size = spec.sizeMillis();
+        long advance = spec.advanceMillis();
+        long lastStart = timestamp - Math.floorMod(timestamp, advance);
+        boolean counted = false;
+        for (long start = lastStart; start > timestamp - size; start -= advance) {
+            long end = start + size;
+            if (end <= watermark) {
+                continue;
+            }
+            int slot = windows.slot(keyId, start);
+            if (windows.isNew(slot)) {
+                windows.bounds(slot, start, end, end);
+            }
+            windows.add(slot, amount);
+            counted = true;
+        }
+        if (!counted) {
+            lateRecords++;
+        }
+    }
+
+    private void addToSession(int keyId, long timestamp, long amount, long watermark, List<WindowResult<K>> closed) {
+        long gap = spec.gapMillis();
+        if (timestamp + gap <= watermark) {
+            lateRecords++;
+            return;
+        }
+        int slot = windows.slot(keyId, 0);
+        if (!windows.isNew(slot)) {
+            long start = windows.start(slot);
+            long end = windows.end(slot);
+            if (timestamp < start - gap) {
+                lateRecords++;
+                return;
+            }
+            if (timestamp < end - 1 + gap) {
+                long newEnd = Math.max(end, timestamp + 1);
+                windows.bounds(slot, Math.min(start, timestamp), newEnd, newEnd - 1 + gap);
+                windows.add(slot, amount);
+                return;
+            }
+            windows.emitAndReset(slot, collector(closed));
+        }
+        windows.bounds(slot, timestamp, timestamp + 1, timestamp + gap);
+        windows.add(slot, amount);
+    }
+
+    private long watermark() {
+        return maxTimestamp == Long.MIN_VALUE ? Long.MIN_VALUE : maxTimestamp - allowedLateness;
+    }
+
+    private WindowTable.ClosedWindow collector(List<WindowResult<K>> closed) {
+        return (keyId, start, end, count, sum, min, max) ->
+            closed.add(new WindowResult<>(keys.key(keyId), start, end, count, sum, min, max));
+    }
+}
@@ -0,0 +1,71 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ControllerBenchmark {
+
+    @Param({"127", "1023"})
+    private int nodes;
+
+    private ExploreResponse response;
+    private RelationGraph graph;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        response = RelationshipFixtures.exploreResponse(RelationshipFixtures.tree(nodes));
+        graph = RelationGraph.of(response);
+        payload = RelationshipFixtures.tree(nodes).toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> extractRelationShortcut() {
+        return Controller.extractRelationShortcut(response);
+    }
+
+    @Benchmark
+    public List<String> extractRelationShortcutDFS() {
+        return Controller.extractRelationShortcutDFS(response);
+    }
+
+    @Benchmark
+    public RelationGraph buildRelationGraph() {
+        return RelationGraph.of(response);
+    }
+
+    @Benchmark
+    public RelationGraph readRelationGraph() {
+        return RelationGraphReader.read(payload);
+    }
+
+    @Benchmark
+    public Map<String, List<String>> extractRelationShortcutIndexed() {
+        return Controller.extractRelationShortcut(graph);
+    }
+
+    @Benchmark
+    public List<String> extractRelationShortcutDFSIndexed() {
+        return Controller.extractRelationShortcutDFS(graph);
+    }
+}
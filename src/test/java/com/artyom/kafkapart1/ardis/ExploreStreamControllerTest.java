@@ -0,0 +1,218 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 3, topics = "explore-events")
+class ExploreStreamControllerTest {
+
+    private static final String TOPIC = "explore-events";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private KafkaSender<String, ExploreEvent> sender;
+    private ExploreStream stream;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DEFAULT)
+                                                 .withBootstrapServers(broker.getBrokersAsString()));
+        sender = factory.create(StringSerializer.class, ExploreEventSerializer.class);
+        stream = new ExploreStream(new ExploreProperties(broker.getBrokersAsString(), TOPIC, Duration.ofHours(1)));
+        client = WebTestClient.bindToController(new ExploreStreamController(stream))
+            .configureClient()
+            .responseTimeout(Duration.ofSeconds(30))
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sender.close();
+        stream.destroy();
+    }
+
+    @Test
+    void testSectionsAndStatusAreStreamedAsServerSentEventsUntilDone() {
+        var graph = new CommonSection(View.GRAPH, "relationship", "Relationship", "relationship");
+        graph.setData(RelationshipFixtures.tree(3));
+
+        send(List.of(
+            ExploreEvent.status("p-1", ProcessStatus.SEARCHING),
+            ExploreEvent.section("p-2", new CommonSection(View.MAP, "other", "Other", "other")),
+            ExploreEvent.section("p-1", graph),
+            ExploreEvent.status("p-1", ProcessStatus.ANALYSING)
+        ));
+
+        var events = client.get().uri("/explore/p-1/events")
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+            })
+            .getResponseBody();
+
+        StepVerifier.create(events)
+            .assertNext(event -> assertEquals("status", event.event()))
+            .assertNext(event -> {
+                assertEquals("graph", event.event());
+                var section = ExploreEvent.fromJson(event.data().getBytes(StandardCharsets.UTF_8)).section();
+                assertEquals("relationship", section.getSectionId());
+                assertEquals(3, section.getData().getAsJsonArray("nodes").size());
+            })
+            .assertNext(event -> assertEquals(ProcessStatus.ANALYSING, status(event)))
+            .then(() -> send(List.of(
+                ExploreEvent.section("p-1", new CommonSection(View.TABLE, "people", "People", "people")),
+                ExploreEvent.status("p-1", ProcessStatus.DONE),
+                ExploreEvent.section("p-1", new CommonSection(View.TABLE, "late", "Late", "late"))
+            )))
+            .assertNext(event -> assertEquals("table", event.event()))
+            .assertNext(event -> assertEquals(ProcessStatus.DONE, status(event)))
+            .verifyComplete();
+    }
+
+    @Test
+    void testNdjsonWithViewFilter() {
+        send(List.of(
+            ExploreEvent.section("p-3", new CommonSection(View.GRAPH, "relationship", "Relationship", "relationship")),
+            ExploreEvent.section("p-3", new CommonSection(View.CARD, "card", "Card", "card")),
+            ExploreEvent.status("p-3", ProcessStatus.STOPPED)
+        ));
+
+        var lines = client.get().uri("/explore/p-3/events?view=CARD")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(String.class)
+            .getResponseBody()
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        // the client splits the body on new lines, one element per event
+        var events = lines.stream()
+            .map(line -> ExploreEvent.fromJson(line.getBytes(StandardCharsets.UTF_8)))
+            .toList();
+        assertEquals(2, events.size());
+        assertEquals(View.CARD, events.get(0).section().getView());
+        assertEquals(ProcessStatus.STOPPED, events.get(1).status());
+    }
+
+    @Test
+    void testReusedProjectIdStartsAtItsLatestRun() {
+        send(List.of(
+            ExploreEvent.status("p-4", ProcessStatus.RUNNING),
+            ExploreEvent.section("p-4", new CommonSection(View.TABLE, "first-run", "First run", "first-run")),
+            ExploreEvent.status("p-4", ProcessStatus.DONE),
+            ExploreEvent.status("p-4", ProcessStatus.RUNNING),
+            ExploreEvent.section("p-4", new CommonSection(View.TABLE, "second-run", "Second run", "second-run"))
+        ));
+
+        StepVerifier.create(stream.events("p-4"))
+            .assertNext(event -> assertEquals(ProcessStatus.RUNNING, event.status()))
+            .assertNext(event -> assertEquals("second-run", event.section().getSectionId()))
+            .then(() -> send(List.of(ExploreEvent.status("p-4", ProcessStatus.STOPPED))))
+            .assertNext(event -> assertEquals(ProcessStatus.STOPPED, event.status()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(30));
+
+        // the history ends with a finished run: that run is served and the stream ends without waiting
+        StepVerifier.create(stream.events("p-4"))
+            .assertNext(event -> assertEquals(ProcessStatus.RUNNING, event.status()))
+            .assertNext(event -> assertEquals("second-run", event.section().getSectionId()))
+            .assertNext(event -> assertEquals(ProcessStatus.STOPPED, event.status()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testMalformedEventsAreSkippedInHistoryAndTail() {
+        send(List.of(ExploreEvent.status("p-5", ProcessStatus.RUNNING)));
+        sendRaw("p-5", "{not an event");
+        send(List.of(ExploreEvent.section("p-5", new CommonSection(View.MAP, "map", "Map", "map"))));
+
+        StepVerifier.create(stream.events("p-5"))
+            .assertNext(event -> assertEquals(ProcessStatus.RUNNING, event.status()))
+            .assertNext(event -> assertEquals("map", event.section().getSectionId()))
+            .then(() -> {
+                sendRaw("p-5", "[1, 2");
+                send(List.of(ExploreEvent.status("p-5", ProcessStatus.DONE)));
+            })
+            .assertNext(event -> assertEquals(ProcessStatus.DONE, event.status()))
+            .expectComplete()
+            .verify(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testLatestRunOfHistory() {
+        var running = ExploreEvent.status("p", ProcessStatus.RUNNING);
+        var section = ExploreEvent.section("p", new CommonSection(View.MAP, "map", "Map", "map"));
+        var done = ExploreEvent.status("p", ProcessStatus.DONE);
+        var error = ExploreEvent.status("p", ProcessStatus.ERROR);
+
+        assertEquals(List.of(), ExploreStream.latestRun(List.of()));
+        assertEquals(List.of(running, section), ExploreStream.latestRun(List.of(running, section)));
+        assertEquals(List.of(running, section, done), ExploreStream.latestRun(List.of(running, section, done)));
+        assertEquals(List.of(section), ExploreStream.latestRun(List.of(running, done, section)));
+        assertEquals(List.of(section, error), ExploreStream.latestRun(List.of(running, done, section, error)));
+        assertEquals(List.of(error), ExploreStream.latestRun(List.of(running, done, error)));
+    }
+
+    @Test
+    void testPartitionMatchesTheProducer() {
+        for (int i = 0; i < 20; i++) {
+            var key = "project-" + i;
+            var result = sender.send(Flux.just(SenderRecord.create(
+                    new ProducerRecord<>(TOPIC, key, ExploreEvent.status(key, ProcessStatus.RUNNING)), key)))
+                .blockLast(Duration.ofSeconds(10));
+            assertEquals(result.recordMetadata().partition(), ExploreStream.partition(key, 3));
+        }
+    }
+
+    private void send(List<ExploreEvent> events) {
+        sender.send(Flux.fromIterable(events)
+                        .map(event -> SenderRecord.create(new ProducerRecord<>(TOPIC, event.projectId(), event), event.projectId())))
+            .blockLast(Duration.ofSeconds(10));
+    }
+
+    private void sendRaw(String projectId, String payload) {
+        try (var producer = new KafkaProducer<String, String>(Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class))) {
+            producer.send(new ProducerRecord<>(TOPIC, projectId, payload));
+        }
+    }
+
+    private static ProcessStatus status(ServerSentEvent<String> event) {
+        return ExploreEvent.fromJson(event.data().getBytes(StandardCharsets.UTF_8)).status();
+    }
+}
@@ -0,0 +1,169 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PathQueryTest {
+
+    @Test
+    void testUnboundedQueryMatchesFullPathEnumeration() {
+        var random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            int nodes = 2 + random.nextInt(8);
+            var builder = RelationGraph.builder();
+            for (int i = 0; i < nodes; i++) {
+                builder.node("n" + i, "PERSON", "title-" + random.nextInt(nodes));
+            }
+            for (int i = random.nextInt(nodes * 2); i > 0; i--) {
+                builder.edge("n" + random.nextInt(nodes + 1), "n" + random.nextInt(nodes), "r" + random.nextInt(2));
+            }
+            var graph = builder.build();
+
+            var result = new PathQuery(graph, PathQuery.UNBOUNDED_DEPTH, PathQuery.UNBOUNDED_PATHS).run();
+            assertEquals(FullEnumeration.trees(graph), result.trees(), "round " + round);
+            assertFalse(result.truncated());
+        }
+    }
+
+    @Test
+    void testTreeSubTriesAreBuiltOnce() {
+        var graph = RelationGraph.of(RelationshipFixtures.tree(1023));
+
+        var result = new PathQuery(graph, PathQuery.UNBOUNDED_DEPTH, PathQuery.UNBOUNDED_PATHS).run();
+
+        assertEquals(FullEnumeration.trees(graph), result.trees());
+        assertFalse(result.truncated());
+    }
+
+    @Test
+    void testMaxPathsStopsExponentialFanIn() {
+        // 40 layers of two nodes, every node linked to both nodes of the next layer: 2^40 paths from the top
+        var builder = RelationGraph.builder();
+        for (int layer = 0; layer <= 40; layer++) {
+            builder.node("a" + layer, "PERSON", "a" + layer).node("b" + layer, "PERSON", "b" + layer);
+        }
+        for (int layer = 0; layer < 40; layer++) {
+            for (String target : List.of("a" + layer, "b" + layer)) {
+                builder.edge("a" + (layer + 1), target, "r").edge("b" + (layer + 1), target, "r");
+            }
+        }
+
+        var result = new PathQuery(builder.build(), PathQuery.UNBOUNDED_DEPTH, 1_000).run();
+
+        assertTrue(result.truncated());
+        assertEquals(1_000, result.paths());
+        assertFalse(result.trees().isEmpty());
+    }
+
+    @Test
+    void testMaxDepthTurnsTheLastNodeIntoALeaf() {
+        var graph = RelationGraph.builder()
+            .node("a", "PERSON", "A")
+            .node("b", "PERSON", "B")
+            .node("c", "PERSON", "C")
+            .edge("b", "a", "r")
+            .edge("c", "b", "r")
+            .build();
+
+        var result = new PathQuery(graph, 1, PathQuery.UNBOUNDED_PATHS).run();
+
+        assertTrue(result.truncated());
+        assertEquals(List.of("PERSON: A -> [r -> [PERSON: B]]", "PERSON: B -> [r -> [PERSON: C]]", "PERSON: C"),
+                     result.trees());
+    }
+
+    @Test
+    void testCyclesEndTheBranchWithoutAPath() {
+        var graph = RelationGraph.builder()
+            .node("a", "PERSON", "A")
+            .node("b", "PERSON", "B")
+            .node("c", "PERSON", "C")
+            .node("d", "PERSON", "D")
+            .edge("b", "a", "r")
+            .edge("a", "b", "r")
+            .edge("c", "a", "s")
+            .edge("d", "d", "self")
+            .build();
+
+        var result = new PathQuery(graph, PathQuery.UNBOUNDED_DEPTH, PathQuery.UNBOUNDED_PATHS).run();
+
+        assertEquals(FullEnumeration.trees(graph), result.trees());
+        var tree = normalize(result.toMap());
+        assertEquals(Map.of("r", Map.of("PERSON: A", Map.of("s", Map.of("PERSON: C", List.of())))),
+                     tree.get("PERSON: B"));
+        assertFalse(tree.containsKey("PERSON: D"), "a self loop has no path");
+    }
+
+    /*
+        nulls are not allowed in Map.of, leaves become empty lists
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> normalize(Map<String, Object> map) {
+        var normalized = new LinkedHashMap<String, Object>();
+        map.forEach((key, value) -> normalized.put(key, value == null ? List.of() : normalize((Map<String, Object>) value)));
+        return normalized;
+    }
+
+    /*
+        every simple path materialized and inserted into a trie, the enumeration PathQuery replaces
+     */
+    private static final class FullEnumeration {
+
+        static List<String> trees(RelationGraph graph) {
+            var allPaths = new ArrayList<List<String>>();
+            var visited = new boolean[graph.size()];
+            for (int i = 0; i < graph.nodeCount(); i++) {
+                dfs(graph, graph.node(i), visited, new ArrayList<>(), allPaths);
+            }
+            var root = new LinkedHashMap<String, Object>();
+            for (var path : allPaths) {
+                var current = root;
+                for (var part : path) {
+                    current = trie(current.computeIfAbsent(part, k -> new LinkedHashMap<String, Object>()));
+                }
+            }
+            var trees = new ArrayList<String>();
+            root.forEach((value, children) -> trees.add(serialize(value, trie(children))));
+            return trees;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static LinkedHashMap<String, Object> trie(Object node) {
+            return (LinkedHashMap<String, Object>) node;
+        }
+
+        private static String serialize(String value, LinkedHashMap<String, Object> children) {
+            if (children.isEmpty()) {
+                return value;
+            }
+            var parts = new ArrayList<String>();
+            children.forEach((child, grandChildren) -> parts.add(serialize(child, trie(grandChildren))));
+            return value + " -> [" + String.join(", ", parts) + "]";
+        }
+
+        private static void dfs(RelationGraph graph, int node, boolean[] visited, List<String> path,
+                                List<List<String>> allPaths) {
+            if (visited[node]) return;
+            visited[node] = true;
+            path.add(graph.name(node));
+            if (!graph.hasIncoming(node)) {
+                allPaths.add(new ArrayList<>(path));
+            } else {
+                for (int edge = graph.start(node); edge < graph.end(node); edge++) {
+                    path.add(graph.relation(edge));
+                    dfs(graph, graph.source(edge), visited, path, allPaths);
+                    path.removeLast();
+                }
+            }
+            path.removeLast();
+            visited[node] = false;
+        }
+    }
+}
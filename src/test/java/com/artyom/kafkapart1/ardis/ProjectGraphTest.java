@@ -0,0 +1,116 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectGraphTest {
+
+    @Test
+    void testIncrementalShortcutsMatchFullRecompute() {
+        var random = new Random(11);
+        for (int round = 0; round < 100; round++) {
+            var project = new ProjectGraph("p-" + round);
+            int nodes = 2 + random.nextInt(10);
+            for (int step = 0; step < 40; step++) {
+                if (random.nextBoolean()) {
+                    project.apply(RelationDelta.node(project.projectId(), "n" + random.nextInt(nodes),
+                                                     random.nextBoolean() ? "PERSON" : "ORGANIZATION",
+                                                     "t" + random.nextInt(nodes)));
+                } else {
+                    project.apply(RelationDelta.edge(project.projectId(), "n" + random.nextInt(nodes),
+                                                     "n" + random.nextInt(nodes), "r" + random.nextInt(3)));
+                }
+                assertEquals(Controller.extractRelationShortcut(project.relationGraph()), project.shortcuts(),
+                             "round " + round);
+            }
+        }
+    }
+
+    @Test
+    void testUpdateCarriesOnlyTheAffectedNeighborhood() {
+        var project = new ProjectGraph("p-1");
+        project.apply(RelationDelta.node("p-1", "a", "PERSON", "A"));
+        project.apply(RelationDelta.node("p-1", "b", "PERSON", "B"));
+        project.apply(RelationDelta.node("p-1", "c", "PERSON", "C"));
+        project.apply(RelationDelta.edge("p-1", "b", "c", "knows"));
+
+        var edge = project.apply(RelationDelta.edge("p-1", "b", "a", "owns"));
+        assertEquals(Map.of("PERSON: A", List.of("owns: PERSON: B")), edge.shortcuts());
+        assertEquals(5, edge.version());
+
+        var rename = project.apply(RelationDelta.node("p-1", "b", "ORGANIZATION", "B"));
+        assertEquals(Map.of("PERSON: A", List.of("owns: ORGANIZATION: B"),
+                            "PERSON: C", List.of("knows: ORGANIZATION: B")), rename.shortcuts());
+
+        var status = project.apply(RelationDelta.status("p-1", ProcessStatus.DONE));
+        assertTrue(status.shortcuts().isEmpty());
+        assertEquals(ProcessStatus.DONE, project.snapshot().status());
+        assertEquals(2, project.snapshot().shortcuts().size());
+    }
+
+    @Test
+    void testRelationGraphMatchesAReadOfThePayloadInDeltaOrder() {
+        var random = new Random(23);
+        for (int round = 0; round < 50; round++) {
+            var project = new ProjectGraph("p-" + round);
+            var nodes = new JsonArray();
+            var edges = new JsonArray();
+            int size = 3 + random.nextInt(10);
+            for (int step = 0; step < 60; step++) {
+                // ids past size / 2 never get a node delta, they only appear in edges
+                if (random.nextInt(3) == 0) {
+                    var id = "n" + random.nextInt(size / 2);
+                    var title = "t" + random.nextInt(size);
+                    project.apply(RelationDelta.node(project.projectId(), id, "PERSON", title));
+                    var node = new JsonObject();
+                    node.addProperty("id", id);
+                    node.addProperty("nodeType", "PERSON");
+                    node.addProperty("title", title);
+                    nodes.add(node);
+                } else {
+                    var source = "n" + random.nextInt(size);
+                    var target = "n" + random.nextInt(size);
+                    var title = "r" + random.nextInt(3);
+                    project.apply(RelationDelta.edge(project.projectId(), source, target, title));
+                    var edge = new JsonObject();
+                    edge.addProperty("source", source);
+                    edge.addProperty("target", target);
+                    edge.addProperty("title", title);
+                    edges.add(edge);
+                }
+            }
+            var payload = new JsonObject();
+            payload.add("nodes", nodes);
+            payload.add("edges", edges);
+
+            var expected = RelationGraphReader.read(payload.toString().getBytes(StandardCharsets.UTF_8));
+            var actual = project.relationGraph();
+            assertEquals(describe(expected), describe(actual), "round " + round);
+            assertEquals(new PathQuery(expected, 4, 1_000).run().trees(), new PathQuery(actual, 4, 1_000).run().trees(),
+                         "round " + round);
+        }
+    }
+
+    /*
+        every interned id and every incoming edge with its position, so a different interning or edge order shows up
+     */
+    private static List<String> describe(RelationGraph graph) {
+        var lines = new ArrayList<String>();
+        for (int node = 0; node < graph.size(); node++) {
+            lines.add(node + " " + graph.externalId(node) + " " + graph.name(node));
+            for (int edge = graph.start(node); edge < graph.end(node); edge++) {
+                lines.add("  " + edge + " " + graph.source(edge) + " " + graph.relationId(edge) + " " + graph.relation(edge));
+            }
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,59 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationGraphReaderTest {
+
+    @Test
+    void testStreamedGraphMatchesTheJsonObjectGraph() {
+        var data = RelationshipFixtures.tree(127);
+        var payload = data.toString().getBytes(StandardCharsets.UTF_8);
+
+        var streamed = new RelationGraphDeserializer().deserialize("relationship", payload);
+        var parsed = RelationGraph.of(data);
+
+        assertEquals(parsed.nodeCount(), streamed.nodeCount());
+        assertEquals(parsed.edgeCount(), streamed.edgeCount());
+        assertEquals(Controller.extractRelationShortcut(parsed), Controller.extractRelationShortcut(streamed));
+        assertEquals(Controller.extractRelationShortcutDFS(parsed), Controller.extractRelationShortcutDFS(streamed));
+    }
+
+    @Test
+    void testFieldOrderAndUnknownFieldsDoNotMatter() {
+        var json = """
+            {
+              "version": 3,
+              "edges": [ { "weight": 0.5, "title": "owns", "target": "a", "source": "b" } ],
+              "nodes": [
+                { "title": "A", "meta": { "tags": ["x"] }, "nodeType": "PERSON", "id": "a" },
+                { "id": "b", "nodeType": "ORGANIZATION", "title": 42 }
+              ]
+            }
+            """;
+
+        var graph = RelationGraphReader.read(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(List.of("owns: ORGANIZATION: 42"), Controller.extractRelationShortcut(graph).get("PERSON: A"));
+        assertEquals("PERSON: A", graph.name(graph.node(0)));
+    }
+
+    @Test
+    void testMissingFieldIsRejected() {
+        var json = "{ \"nodes\": [ { \"id\": \"a\", \"title\": \"A\" } ], \"edges\": [] }";
+
+        var error = assertThrows(JsonParseException.class,
+                                 () -> RelationGraphReader.read(json.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(error.getMessage().contains("nodeType"));
+    }
+
+    @Test
+    void testNullRecordValue() {
+        assertNull(new RelationGraphDeserializer().deserialize("relationship", null));
+    }
+}
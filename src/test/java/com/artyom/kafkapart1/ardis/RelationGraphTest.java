@@ -0,0 +1,105 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RelationGraphTest {
+
+    @Test
+    void testIncomingEdgesAreGroupedByTargetInPayloadOrder() {
+        var graph = RelationGraph.builder()
+            .node("a", "PERSON", "A")
+            .node("b", "ORGANIZATION", "B")
+            .edge("b", "a", "owns")
+            .edge("a", "b", "director")
+            .edge("b", "a", "owns")
+            .edge("x", "a", "works")
+            .build();
+
+        assertEquals(2, graph.nodeCount());
+        assertEquals(3, graph.size());
+        assertEquals(4, graph.edgeCount());
+
+        int a = graph.id("a");
+        int x = graph.id("x");
+        assertEquals("PERSON: A", graph.name(a));
+        assertNull(graph.name(x), "x only appears in an edge");
+        assertFalse(graph.hasIncoming(x));
+        assertEquals(-1, graph.id("missing"));
+
+        var incoming = new ArrayList<String>();
+        for (int edge = graph.start(a); edge < graph.end(a); edge++) {
+            incoming.add(graph.relation(edge) + " " + graph.externalId(graph.source(edge)));
+        }
+        assertEquals(List.of("owns b", "owns b", "works x"), incoming);
+        assertEquals(graph.relationId(graph.start(a)), graph.relationId(graph.start(a) + 1), "titles are interned");
+    }
+
+    @Test
+    void testNodeDeclaredAfterItsEdgesKeepsDeclarationOrder() {
+        var graph = RelationGraph.builder()
+            .edge("b", "a", "owns")
+            .node("b", "ORGANIZATION", "B")
+            .node("a", "PERSON", "A")
+            .node("b", "ORGANIZATION", "B2")
+            .build();
+
+        assertEquals(2, graph.nodeCount());
+        assertEquals("ORGANIZATION: B2", graph.name(graph.node(0)));
+        assertEquals("PERSON: A", graph.name(graph.node(1)));
+    }
+
+    @Test
+    void testBuiltFromJsonPayload() {
+        var graph = RelationGraph.of(RelationshipFixtures.tree(7));
+
+        assertEquals(7, graph.nodeCount());
+        assertEquals(6, graph.edgeCount());
+        int root = graph.id("n0");
+        assertEquals(2, graph.end(root) - graph.start(root));
+        assertEquals("n1", graph.externalId(graph.source(graph.start(root))));
+        assertFalse(graph.hasIncoming(graph.id("n6")));
+    }
+
+    @Test
+    void testExtractionsMatchTheStringKeyedImplementation() {
+        var nodes = new JsonArray();
+        nodes.add(node("a", "PERSON", "A"));
+        nodes.add(node("b", "ORGANIZATION", "B"));
+        nodes.add(node("c", "PERSON", "C"));
+        var edges = new JsonArray();
+        edges.add(RelationshipFixtures.edge("b", "a", "owns"));
+        edges.add(RelationshipFixtures.edge("c", "a", "works"));
+        edges.add(RelationshipFixtures.edge("c", "b", "director"));
+        edges.add(RelationshipFixtures.edge("x", "c", "ghost"));
+        var data = new JsonObject();
+        data.add("nodes", nodes);
+        data.add("edges", edges);
+        var response = RelationshipFixtures.exploreResponse(data);
+
+        var shortcuts = Controller.extractRelationShortcut(response);
+        assertEquals(List.of("PERSON: A", "ORGANIZATION: B", "PERSON: C"), List.copyOf(shortcuts.keySet()));
+        assertEquals(List.of("owns: ORGANIZATION: B", "works: PERSON: C"), shortcuts.get("PERSON: A"));
+        assertEquals(List.of("ghost: null"), shortcuts.get("PERSON: C"));
+
+        assertEquals(List.of(
+            "PERSON: A -> [owns -> [ORGANIZATION: B -> [director -> [PERSON: C -> [ghost -> [null]]]]], "
+                + "works -> [PERSON: C -> [ghost -> [null]]]]",
+            "ORGANIZATION: B -> [director -> [PERSON: C -> [ghost -> [null]]]]",
+            "PERSON: C -> [ghost -> [null]]"), Controller.extractRelationShortcutDFS(response));
+    }
+
+    private static JsonObject node(String id, String nodeType, String title) {
+        var node = new JsonObject();
+        node.addProperty("id", id);
+        node.addProperty("nodeType", nodeType);
+        node.addProperty("title", title);
+        return node;
+    }
+}
@@ -0,0 +1,117 @@
+package com.artyom.kafkapart1.ardis;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import com.google.gson.Gson;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 2, topics = {"relation-deltas", "relation-deltas-malformed"})
+class RelationGraphUpdaterTest {
+
+    private static final String TOPIC = "relation-deltas";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testDeltasAreAppliedPerProjectWhileRunning() {
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DEFAULT)
+                                                 .withBootstrapServers(broker.getBrokersAsString()));
+        KafkaSender<String, RelationDelta> sender = factory.create(StringSerializer.class, RelationDeltaSerializer.class);
+
+        send(sender, List.of(
+            RelationDelta.node("p-1", "a", "PERSON", "A"),
+            RelationDelta.node("p-1", "b", "ORGANIZATION", "B"),
+            RelationDelta.edge("p-1", "b", "a", "owns"),
+            RelationDelta.node("p-2", "x", "PERSON", "X"),
+            RelationDelta.edge("p-2", "x", "x", "self")
+        ));
+
+        var updater = new RelationGraphUpdater();
+        var options = RelationGraphUpdater.receiverOptions(
+            Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()), TOPIC);
+
+        StepVerifier.create(updater.run(KafkaReceiver.create(options)))
+            .expectNextCount(5)
+            .then(() -> {
+                var partial = updater.snapshot("p-1").orElseThrow();
+                assertEquals(ProcessStatus.RUNNING, partial.status());
+                assertEquals(Map.of("PERSON: A", List.of("owns: ORGANIZATION: B")), partial.shortcuts());
+
+                send(sender, List.of(
+                    RelationDelta.node("p-1", "c", "PERSON", "C"),
+                    RelationDelta.edge("p-1", "c", "b", "director"),
+                    RelationDelta.status("p-1", ProcessStatus.DONE)
+                ));
+            })
+            .assertNext(update -> assertTrue(update.shortcuts().isEmpty(), "c has no edges yet"))
+            .assertNext(update -> assertEquals(Map.of("ORGANIZATION: B", List.of("director: PERSON: C")), update.shortcuts()))
+            .assertNext(update -> assertEquals(ProcessStatus.DONE, update.status()))
+            .then(() -> sender.send(Flux.just(SenderRecord.create(new ProducerRecord<String, RelationDelta>(TOPIC, "p-2", null), "p-2")))
+                .blockLast(Duration.ofSeconds(10)))
+            .thenAwait(Duration.ofSeconds(2))
+            .thenCancel()
+            .verify(Duration.ofSeconds(30));
+
+        var done = updater.snapshot("p-1").orElseThrow();
+        assertEquals(ProcessStatus.DONE, done.status());
+        assertEquals(6, done.version());
+        assertEquals(2, done.shortcuts().size());
+        assertTrue(updater.snapshot("p-2").isEmpty(), "tombstone drops the project");
+        sender.close();
+    }
+
+    @Test
+    void testMalformedDeltaIsSkippedAndTheUpdaterKeepsRunning() {
+        var topic = "relation-deltas-malformed";
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DEFAULT)
+                                                 .withBootstrapServers(broker.getBrokersAsString()));
+        var raw = factory.createStringSender();
+        var valid = RelationDelta.node("p-1", "a", "PERSON", "A");
+        raw.send(Flux.just("{\"type\": \"NODE\", \"id\": ", "[1, 2]", new Gson().toJson(valid))
+                     .map(json -> SenderRecord.create(new ProducerRecord<>(topic, 0, "p-1", json), json)))
+            .blockLast(Duration.ofSeconds(10));
+        raw.close();
+
+        var updater = new RelationGraphUpdater();
+        var options = RelationGraphUpdater.receiverOptions(
+            Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()), topic);
+
+        StepVerifier.create(updater.run(KafkaReceiver.create(options)))
+            .assertNext(update -> assertEquals(1, update.version(), "only the valid delta is applied"))
+            .thenCancel()
+            .verify(Duration.ofSeconds(30));
+        assertEquals(1, updater.project("p-1").orElseThrow().relationGraph().nodeCount());
+
+        var deserializer = new RelationDeltaDeserializer();
+        assertSame(RelationDelta.MALFORMED, deserializer.deserialize(topic, "not json".getBytes(StandardCharsets.UTF_8)));
+        assertNull(deserializer.deserialize(topic, null));
+    }
+
+    private static void send(KafkaSender<String, RelationDelta> sender, List<RelationDelta> deltas) {
+        sender.send(Flux.fromIterable(deltas)
+                        .map(delta -> SenderRecord.create(new ProducerRecord<>(TOPIC, delta.projectId(), delta), delta.type())))
+            .blockLast(Duration.ofSeconds(10));
+    }
+}
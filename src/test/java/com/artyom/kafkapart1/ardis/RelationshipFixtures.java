@@ -0,0 +1,55 @@
+package com.artyom.kafkapart1.ardis;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/*
+    synthetic relationship payloads in the shape Controller expects:
+
+    { "nodes": [ { "id", "title", "nodeType" } ], "edges": [ { "source", "target", "title" } ] }
+
+    node i is linked to its parent (i - 1) / 2, so the graph is a binary tree rooted at n0
+ */
+public final class RelationshipFixtures {
+
+    private RelationshipFixtures() {
+    }
+
+    public static JsonObject tree(int nodeCount) {
+        var nodes = new JsonArray();
+        for (int i = 0; i < nodeCount; i++) {
+            var node = new JsonObject();
+            node.addProperty("id", "n" + i);
+            node.addProperty("title", "title-" + i);
+            node.addProperty("nodeType", i % 2 == 0 ? NodeType.PERSON.name() : NodeType.ORGANIZATION.name());
+            nodes.add(node);
+        }
+
+        var edges = new JsonArray();
+        for (int i = 1; i < nodeCount; i++) {
+            edges.add(edge("n" + i, "n" + ((i - 1) / 2), "relation-" + (i % 3)));
+        }
+
+        var data = new JsonObject();
+        data.add("nodes", nodes);
+        data.add("edges", edges);
+        return data;
+    }
+
+    public static JsonObject edge(String source, String target, String title) {
+        var edge = new JsonObject();
+        edge.addProperty("source", source);
+        edge.addProperty("target", target);
+        edge.addProperty("title", title);
+        return edge;
+    }
+
+    public static ExploreResponse exploreResponse(JsonObject data) {
+        var relationship = new CommonSection(View.GRAPH, "relationship", "Relationship", "relationship");
+        relationship.setData(data);
+
+        var response = new ExploreResponse(NodeType.PERSON, "title-0", null);
+        response.getAnalytics().put("relationship", relationship);
+        return response;
+    }
+}
@@ -0,0 +1,53 @@
+package com.artyom.kafkapart1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.SenderRecord;
+
+/*
+    the map chains from sec02 - sec05 without a broker: range -> ProducerRecord -> SenderRecord
+    scores are per record
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReactorPipelineBenchmark {
+
+    private static final int RECORDS = 10_000;
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void twoStepMap(Blackhole bh) {
+        Flux.range(1, RECORDS)
+            .map(i -> new ProducerRecord<>("order-events", i.toString(), "order-" + i))
+            .map(record -> SenderRecord.create(record, record.key()))
+            .subscribe(bh::consume);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public void fusedMap(Blackhole bh) {
+        Flux.range(1, RECORDS)
+            .map(i -> {
+                var key = i.toString();
+                return SenderRecord.create(new ProducerRecord<>("order-events", key, "order-" + i), key);
+            })
+            .subscribe(bh::consume);
+    }
+}
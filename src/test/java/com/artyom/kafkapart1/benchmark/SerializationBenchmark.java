@@ -0,0 +1,70 @@
+package com.artyom.kafkapart1.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    String vs byte[] round trip for the "order-" + i payloads used in sec02 - sec05
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final String TOPIC = "order-events";
+
+    @Param({"16", "1024"})
+    private int payloadSize;
+
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final ByteArraySerializer byteArraySerializer = new ByteArraySerializer();
+    private final ByteArrayDeserializer byteArrayDeserializer = new ByteArrayDeserializer();
+
+    private String value;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        value = "order-" + "x".repeat(Math.max(0, payloadSize - 6));
+        bytes = stringSerializer.serialize(TOPIC, value);
+    }
+
+    @Benchmark
+    public byte[] serializeString() {
+        return stringSerializer.serialize(TOPIC, value);
+    }
+
+    @Benchmark
+    public byte[] serializeByteArray() {
+        return byteArraySerializer.serialize(TOPIC, bytes);
+    }
+
+    @Benchmark
+    public String deserializeString() {
+        return stringDeserializer.deserialize(TOPIC, bytes);
+    }
+
+    @Benchmark
+    public byte[] deserializeByteArray() {
+        return byteArrayDeserializer.deserialize(TOPIC, bytes);
+    }
+}
@@ -0,0 +1,80 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchReceiverTest {
+
+    private final TestRecords records = new TestRecords();
+
+    @Test
+    void testBatchesAreBoundedBySizeAndAcknowledgeHighestOffsetPerPartition() {
+        var handled = new ArrayList<List<ReceiverRecord<String, String>>>();
+        var batchReceiver = new BatchReceiver<>(receiverOf(
+            records.record("order-events", 0, 10, "a", "order-1"),
+            records.record("order-events", 1, 4, "b", "order-2"),
+            records.record("order-events", 0, 11, "c", "order-3"),
+            records.record("order-events", 1, 5, "d", "order-4"),
+            records.record("order-events", 0, 12, "e", "order-5")
+        ), 4, Duration.ofSeconds(5), BatchReceiver.AckMode.ACKNOWLEDGE);
+
+        StepVerifier.create(batchReceiver.receive(batch -> Mono.fromRunnable(() -> handled.add(batch))))
+            .expectNext(4, 1)
+            .verifyComplete();
+
+        assertEquals(2, handled.size());
+        assertEquals(List.of("0@11", "1@5", "0@12"), offsets(records.acknowledged()));
+        assertTrue(records.committed().isEmpty());
+    }
+
+    @Test
+    void testCommitModeCommitsOnceAfterAcknowledgingOtherPartitions() {
+        var batchReceiver = new BatchReceiver<>(receiverOf(
+            records.record("order-events", 0, 1, "a", "order-1"),
+            records.record("order-events", 1, 7, "b", "order-2"),
+            records.record("order-events", 2, 3, "c", "order-3")
+        ), 10, Duration.ofMillis(50), BatchReceiver.AckMode.COMMIT);
+
+        StepVerifier.create(batchReceiver.receive(batch -> Mono.empty()))
+            .expectNext(3)
+            .verifyComplete();
+
+        assertEquals(List.of("0@1", "1@7"), offsets(records.acknowledged()));
+        assertEquals(List.of("2@3"), offsets(records.committed()));
+    }
+
+    @Test
+    void testFailedHandlerDoesNotAcknowledge() {
+        var batchReceiver = new BatchReceiver<>(receiverOf(
+            records.record("order-events", 0, 1, "a", "order-1")
+        ), 10, Duration.ofMillis(50), BatchReceiver.AckMode.ACKNOWLEDGE);
+
+        StepVerifier.create(batchReceiver.receive(batch -> Mono.error(new IllegalStateException("sink down"))))
+            .verifyError(IllegalStateException.class);
+
+        assertTrue(records.acknowledged().isEmpty());
+    }
+
+    @SafeVarargs
+    private static KafkaReceiver<String, String> receiverOf(ReceiverRecord<String, String>... records) {
+        KafkaReceiver<String, String> receiver = Mockito.mock();
+        Mockito.when(receiver.receive()).thenReturn(Flux.fromArray(records));
+        return receiver;
+    }
+
+    private static List<String> offsets(List<ReceiverOffset> offsets) {
+        return offsets.stream().map(o -> o.topicPartition().partition() + "@" + o.offset()).toList();
+    }
+}
@@ -0,0 +1,53 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.common.TopicPartition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    track + out of order complete, 8 records in flight per window. run with -prof gc to check allocation
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OffsetTrackerBenchmark {
+
+    private static final TopicPartition PARTITION = new TopicPartition("order-events", 0);
+    private static final int WINDOW = 8;
+    private static final int[] ORDER = {3, 0, 7, 1, 5, 2, 6, 4};
+
+    private OffsetTracker tracker;
+    private long next;
+
+    @Setup
+    public void setUp() {
+        tracker = new OffsetTracker();
+        next = 0;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(WINDOW)
+    public void trackAndCompleteOutOfOrder() {
+        long start = next;
+        for (int i = 0; i < WINDOW; i++) {
+            tracker.track(PARTITION, next++);
+        }
+        for (int i : ORDER) {
+            tracker.complete(PARTITION, start + i);
+        }
+    }
+}
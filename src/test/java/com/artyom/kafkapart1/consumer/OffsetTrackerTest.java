@@ -0,0 +1,132 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffsetTrackerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("order-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("order-events", 1);
+
+    @Test
+    void testWatermarkOnlyAdvancesOverContiguousCompletions() {
+        var tracker = new OffsetTracker();
+        for (long offset = 100; offset < 105; offset++) {
+            tracker.track(P0, offset);
+        }
+
+        tracker.complete(P0, 101);
+        tracker.complete(P0, 102);
+        assertTrue(tracker.committable().isEmpty(), "100 is still in flight");
+
+        tracker.complete(P0, 100);
+        assertEquals(Map.of(P0, new OffsetAndMetadata(103)), tracker.committable());
+
+        tracker.complete(P0, 104);
+        tracker.complete(P0, 103);
+        assertEquals(Map.of(P0, new OffsetAndMetadata(105)), tracker.committable());
+    }
+
+    @Test
+    void testCommittedOffsetsAreNotReturnedAgain() {
+        var tracker = new OffsetTracker();
+        tracker.track(P0, 0);
+        tracker.track(P1, 7);
+        tracker.complete(P0, 0);
+        tracker.complete(P1, 7);
+
+        var offsets = tracker.committable();
+        assertEquals(Map.of(P0, new OffsetAndMetadata(1), P1, new OffsetAndMetadata(8)), offsets);
+
+        tracker.committed(offsets);
+        assertTrue(tracker.committable().isEmpty());
+    }
+
+    @Test
+    void testRevokedPartitionsAreForgotten() {
+        var tracker = new OffsetTracker();
+        tracker.track(P0, 0);
+        tracker.track(P1, 0);
+        tracker.remove(List.of(P0));
+
+        tracker.complete(P0, 0);
+        tracker.complete(P1, 0);
+
+        assertEquals(Map.of(P1, new OffsetAndMetadata(1)), tracker.committable());
+    }
+
+    @Test
+    void testOffsetGapsDoNotBlockTheWatermark() {
+        var tracker = new OffsetTracker();
+        tracker.track(P0, 10);
+        tracker.track(P0, 13); // 11, 12 are transaction markers
+        tracker.track(P0, 14);
+
+        tracker.complete(P0, 13);
+        tracker.complete(P0, 10);
+        assertEquals(Map.of(P0, new OffsetAndMetadata(14)), tracker.committable());
+        assertEquals(1, tracker.pending(P0));
+
+        tracker.complete(P0, 14);
+        tracker.track(P0, 1_000_000); // nothing in flight, the gap is skipped
+        tracker.complete(P0, 1_000_000);
+        assertEquals(Map.of(P0, new OffsetAndMetadata(1_000_001)), tracker.committable());
+    }
+
+    @Test
+    void testRingGrowsWhenOldestRecordIsSlow() {
+        var tracker = new OffsetTracker();
+        int count = 300_000;
+        for (long offset = 0; offset < count; offset++) {
+            tracker.track(P0, offset);
+        }
+        for (long offset = 1; offset < count; offset++) {
+            tracker.complete(P0, offset);
+        }
+        assertTrue(tracker.committable().isEmpty());
+        assertEquals(count, tracker.pending(P0));
+
+        tracker.complete(P0, 0);
+        assertEquals(Map.of(P0, new OffsetAndMetadata(count)), tracker.committable());
+        assertEquals(0, tracker.pending(P0));
+    }
+
+    @Test
+    void testRandomCompletionOrderMatchesLowestPendingOffset() {
+        var tracker = new OffsetTracker();
+        var random = new Random(42);
+        var inFlight = new ArrayList<Long>();
+        long next = 0;
+        long lastCommitted = -1;
+
+        for (int round = 0; round < 2_000; round++) {
+            for (int i = random.nextInt(50); i > 0; i--) {
+                tracker.track(P0, next);
+                inFlight.add(next++);
+            }
+            Collections.shuffle(inFlight, random);
+            for (int i = random.nextInt(inFlight.size() + 1); i > 0; i--) {
+                long offset = inFlight.removeLast();
+                tracker.complete(P0, offset);
+            }
+            long expected = inFlight.stream().mapToLong(Long::longValue).min().orElse(next);
+            var committable = tracker.committable().get(P0);
+            if (committable != null) {
+                assertEquals(expected, committable.offset());
+                tracker.committed(Map.of(P0, committable));
+                lastCommitted = committable.offset();
+            } else if (next > 0) {
+                assertEquals(expected, lastCommitted);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.artyom.kafkapart1.metrics.ReceiverMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedProcessorTest {
+
+    private final TestRecords records = new TestRecords();
+
+    @Test
+    void testKeyOrderIsPreservedAcrossParallelGroups() {
+        verifyOrdering(PartitionedProcessor.Grouping.PARTITION);
+        verifyOrdering(PartitionedProcessor.Grouping.KEY_HASH);
+    }
+
+    private void verifyOrdering(PartitionedProcessor.Grouping grouping) {
+        var input = new ArrayList<ReceiverRecord<String, String>>();
+        var offsets = new long[3];
+        for (int i = 0; i < 300; i++) {
+            int partition = i % 3;
+            var key = "key-" + (i % 12);
+            input.add(records.record("order-events", partition, offsets[partition]++, key, String.valueOf(i)));
+        }
+
+        KafkaReceiver<String, String> receiver = Mockito.mock();
+        Mockito.when(receiver.receive()).thenReturn(Flux.fromIterable(input));
+        Consumer<String, String> consumer = TestRecords.onConsumer(receiver);
+
+        var tracker = new OffsetTracker();
+        var seen = new ConcurrentHashMap<String, List<Integer>>();
+        var processor = new PartitionedProcessor<>(receiver, tracker, grouping, 4, Duration.ofHours(1));
+
+        StepVerifier.create(processor.process(r -> Mono.delay(Duration.ofMillis(ThreadLocalRandom.current().nextInt(3)))
+                .doOnNext(t -> seen.computeIfAbsent(r.key(), k -> new ArrayList<>()).add(Integer.parseInt(r.value())))
+                .then()))
+            .expectNextCount(300)
+            .verifyComplete();
+
+        seen.forEach((key, values) -> assertEquals(values.stream().sorted().toList(), values, key));
+        var committed = Map.of(
+            new TopicPartition("order-events", 0), new OffsetAndMetadata(100),
+            new TopicPartition("order-events", 1), new OffsetAndMetadata(100),
+            new TopicPartition("order-events", 2), new OffsetAndMetadata(100)
+        );
+        Mockito.verify(consumer).commitSync(committed);
+        assertTrue(tracker.committable().isEmpty(), "the watermark is committed when the flux completes");
+    }
+
+    @Test
+    void testWatermarkIsCommittedBeforeTheReceiverIsCancelled() {
+        var input = new ArrayList<ReceiverRecord<String, String>>();
+        for (int offset = 0; offset < 50; offset++) {
+            input.add(records.record("order-events", 0, offset, "key-" + offset, String.valueOf(offset)));
+        }
+        var events = new CopyOnWriteArrayList<String>();
+        KafkaReceiver<String, String> receiver = Mockito.mock();
+        Mockito.when(receiver.receive())
+            .thenReturn(Flux.fromIterable(input).concatWith(Flux.never()).doOnCancel(() -> events.add("cancel")));
+        Consumer<String, String> consumer = TestRecords.onConsumer(receiver);
+        Mockito.doAnswer(invocation -> events.add("commit " + invocation.getArgument(0)))
+            .when(consumer).commitSync(Mockito.<Map<TopicPartition, OffsetAndMetadata>>any());
+
+        var processor = new PartitionedProcessor<>(receiver, new OffsetTracker(), PartitionedProcessor.Grouping.PARTITION,
+                                                   2, Duration.ofHours(1));
+        StepVerifier.create(processor.process(r -> Mono.empty()))
+            .expectNextCount(50)
+            .thenCancel()
+            .verify(Duration.ofSeconds(10));
+
+        assertEquals(List.of("commit " + Map.of(new TopicPartition("order-events", 0), new OffsetAndMetadata(50)),
+                             "cancel"), events);
+    }
+
+    @Test
+    void testHandlersAndCommitsAreTimedWithReceiverMetrics() {
+        var input = new ArrayList<ReceiverRecord<String, String>>();
+        for (int offset = 0; offset < 20; offset++) {
+            input.add(records.record("order-events", offset % 2, offset / 2, "key-" + offset, String.valueOf(offset)));
+        }
+        KafkaReceiver<String, String> receiver = Mockito.mock();
+        Mockito.when(receiver.receive()).thenReturn(Flux.fromIterable(input));
+        TestRecords.onConsumer(receiver);
+
+        var registry = new SimpleMeterRegistry();
+        var processor = new PartitionedProcessor<>(receiver, new OffsetTracker(), PartitionedProcessor.Grouping.PARTITION,
+                                                   2, Duration.ofHours(1), new ReceiverMetrics(registry, "demo-group"));
+        StepVerifier.create(processor.process(r -> Mono.empty()))
+            .expectNextCount(20)
+            .verifyComplete();
+
+        assertEquals(20, registry.get("kafka.receiver.processing").timer().count());
+        assertEquals(10, registry.get("kafka.receiver.records").tag("partition", "1").counter().count());
+        assertEquals(1, registry.get("kafka.receiver.commit").timer().count());
+    }
+}
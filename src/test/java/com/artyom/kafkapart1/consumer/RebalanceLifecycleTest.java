@@ -0,0 +1,173 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.artyom.kafkapart1.metrics.KafkaMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverPartition;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RebalanceLifecycleTest {
+
+    private static final TopicPartition P0 = new TopicPartition("order-events", 0);
+    private static final TopicPartition P1 = new TopicPartition("order-events", 1);
+
+    @Test
+    void testRevokedPartitionIsDrainedAndCommittedWhileOthersAreUntouched() {
+        var tracker = new OffsetTracker();
+        Consumer<String, String> consumer = Mockito.mock();
+        var options = bind(new RebalanceLifecycle(tracker, Duration.ofSeconds(5)), consumer);
+        options.assignListeners().forEach(l -> l.accept(partitions(P0, P1)));
+
+        for (long offset = 0; offset < 10; offset++) {
+            tracker.track(P0, offset);
+            tracker.track(P1, offset);
+        }
+        // the handler of P0 finishes while the revoke listener waits
+        CompletableFuture.runAsync(() -> {
+            for (long offset = 0; offset < 10; offset++) {
+                tracker.complete(P0, offset);
+            }
+        }, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+        options.revokeListeners().forEach(l -> l.accept(partitions(P0)));
+
+        Mockito.verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(10)));
+        assertEquals(10, tracker.pending(P1));
+        assertEquals(0, tracker.pending(P0));
+    }
+
+    @Test
+    void testRecordsQueuedBeforeTheRevokeAreHandledNotSkipped() {
+        var tracker = new OffsetTracker();
+        Consumer<String, String> consumer = Mockito.mock();
+        var lifecycle = new RebalanceLifecycle(tracker, Duration.ofSeconds(5));
+        var options = bind(lifecycle, consumer);
+        options.assignListeners().forEach(l -> l.accept(partitions(P0)));
+
+        for (long offset = 0; offset < 5; offset++) {
+            tracker.track(P0, offset);
+        }
+        // the worker reaches the queued records only once the revoke listener is already draining
+        var handled = new ArrayList<Long>();
+        var worker = CompletableFuture.runAsync(() -> {
+            for (long offset = 0; offset < 5; offset++) {
+                if (lifecycle.owns(P0)) {
+                    handled.add(offset);
+                }
+                tracker.complete(P0, offset);
+            }
+        }, CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+        options.revokeListeners().forEach(l -> l.accept(partitions(P0)));
+        worker.join();
+
+        assertEquals(List.of(0L, 1L, 2L, 3L, 4L), handled);
+        Mockito.verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(5)));
+        assertFalse(lifecycle.owns(P0));
+    }
+
+    @Test
+    void testDeadlineCommitsTheWatermarkAndFencesLateRecords() {
+        var tracker = new OffsetTracker();
+        Consumer<String, String> consumer = Mockito.mock();
+        var lifecycle = new RebalanceLifecycle(tracker, Duration.ofMillis(50));
+        var options = bind(lifecycle, consumer);
+        options.assignListeners().forEach(l -> l.accept(partitions(P0)));
+
+        for (long offset = 0; offset < 10; offset++) {
+            tracker.track(P0, offset);
+        }
+        for (long offset = 0; offset < 4; offset++) {
+            tracker.complete(P0, offset);
+        }
+
+        options.revokeListeners().forEach(l -> l.accept(partitions(P0)));
+
+        Mockito.verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(4)));
+        assertFalse(lifecycle.owns(P0));
+
+        tracker.track(P0, 10);
+        tracker.complete(P0, 10);
+        assertTrue(tracker.committable().isEmpty(), "revoked partition must not be committed again");
+    }
+
+    @Test
+    void testWarmUpRunsForNewlyAssignedPartitions() {
+        var tracker = new OffsetTracker();
+        var warmedUp = new ArrayList<TopicPartition>();
+        var lifecycle = new RebalanceLifecycle(tracker, Duration.ofSeconds(1)).onAssign(warmedUp::addAll);
+        var options = bind(lifecycle, Mockito.mock());
+
+        options.revokeListeners().forEach(l -> l.accept(partitions(P1)));
+        options.assignListeners().forEach(l -> l.accept(partitions(P1)));
+
+        assertEquals(List.of(P1), warmedUp);
+        assertTrue(lifecycle.owns(P1));
+        tracker.track(P1, 0);
+        assertEquals(1, tracker.pending(P1), "a reassigned partition is tracked again");
+    }
+
+    @Test
+    void testBindingKeepsTheMetricsListenerInEitherOrder() {
+        for (boolean metricsFirst : new boolean[]{true, false}) {
+            var registry = new SimpleMeterRegistry();
+            var metrics = new KafkaMetrics(registry);
+            var tracker = new OffsetTracker();
+            var lifecycle = new RebalanceLifecycle(tracker, Duration.ofSeconds(1));
+            var options = ReceiverOptions.<String, String>create();
+            options = metricsFirst
+                ? lifecycle.bind(metrics.bind(options, "demo-group"))
+                : metrics.bind(lifecycle.bind(options), "demo-group");
+
+            Consumer<String, String> consumer = Mockito.mock();
+            Metric consumed = Mockito.mock();
+            var name = new MetricName("records-consumed-total", "consumer-fetch-manager-metrics", "",
+                                      Map.of("client-id", "consumer-1"));
+            Mockito.when(consumed.metricName()).thenReturn(name);
+            Mockito.when(consumed.metricValue()).thenReturn(42.0);
+            Mockito.<Map<MetricName, ? extends Metric>>when(consumer.metrics()).thenReturn(Map.of(name, consumed));
+
+            options.consumerListener().consumerAdded("consumer-1", consumer);
+            options.assignListeners().forEach(l -> l.accept(partitions(P0)));
+            tracker.track(P0, 0);
+            tracker.complete(P0, 0);
+            options.revokeListeners().forEach(l -> l.accept(partitions(P0)));
+
+            Mockito.verify(consumer).commitSync(Map.of(P0, new OffsetAndMetadata(1)));
+            assertTrue(registry.getMeters().stream().anyMatch(m -> m.getId().getName().startsWith("kafka.consumer")),
+                       "metrics first: " + metricsFirst + ", meters: " + registry.getMeters());
+        }
+    }
+
+    private static ReceiverOptions<String, String> bind(RebalanceLifecycle lifecycle, Consumer<String, String> consumer) {
+        var options = lifecycle.bind(ReceiverOptions.<String, String>create());
+        options.consumerListener().consumerAdded("consumer-1", consumer);
+        return options;
+    }
+
+    private static Collection<ReceiverPartition> partitions(TopicPartition... partitions) {
+        var result = new ArrayList<ReceiverPartition>();
+        for (var partition : partitions) {
+            ReceiverPartition receiverPartition = Mockito.mock();
+            Mockito.when(receiverPartition.topicPartition()).thenReturn(partition);
+            result.add(receiverPartition);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.mockito.Mockito;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+
+/*
+    ReceiverRecords backed by an offset that remembers what was acknowledged / committed
+ */
+public class TestRecords {
+
+    private final List<ReceiverOffset> acknowledged = new CopyOnWriteArrayList<>();
+    private final List<ReceiverOffset> committed = new CopyOnWriteArrayList<>();
+
+    public ReceiverRecord<String, String> record(String topic, int partition, long offset, String key, String value) {
+        var consumerRecord = new ConsumerRecord<>(topic, partition, offset, key, value);
+        return new ReceiverRecord<>(consumerRecord, new RecordingOffset(new TopicPartition(topic, partition), offset));
+    }
+
+    /*
+        doOnConsumer runs the function against a mock consumer, as the receiver's event loop would
+     */
+    @SuppressWarnings("unchecked")
+    public static <K, V> Consumer<K, V> onConsumer(KafkaReceiver<K, V> receiver) {
+        Consumer<K, V> consumer = Mockito.mock();
+        Mockito.when(receiver.doOnConsumer(Mockito.any()))
+            .thenAnswer(invocation -> Mono.fromCallable(
+                () -> invocation.<Function<Consumer<K, V>, Object>>getArgument(0).apply(consumer)));
+        return consumer;
+    }
+
+    public List<ReceiverOffset> acknowledged() {
+        return acknowledged;
+    }
+
+    public List<ReceiverOffset> committed() {
+        return committed;
+    }
+
+    private class RecordingOffset implements ReceiverOffset {
+        private final TopicPartition topicPartition;
+        private final long offset;
+
+        RecordingOffset(TopicPartition topicPartition, long offset) {
+            this.topicPartition = topicPartition;
+            this.offset = offset;
+        }
+
+        @Override
+        public TopicPartition topicPartition() {
+            return topicPartition;
+        }
+
+        @Override
+        public long offset() {
+            return offset;
+        }
+
+        @Override
+        public void acknowledge() {
+            acknowledged.add(this);
+        }
+
+        @Override
+        public Mono<Void> commit() {
+            return Mono.fromRunnable(() -> committed.add(this));
+        }
+
+        @Override
+        public String toString() {
+            return topicPartition + "@" + offset;
+        }
+    }
+}
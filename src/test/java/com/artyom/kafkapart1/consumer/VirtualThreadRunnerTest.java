@@ -0,0 +1,83 @@
+package com.artyom.kafkapart1.consumer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadRunnerTest {
+
+    private final TestRecords records = new TestRecords();
+
+    @Test
+    void testBlockingHandlersRunOnVirtualThreadsWithinConcurrencyLimit() {
+        var running = new AtomicInteger();
+        var maxRunning = new AtomicInteger();
+        var allVirtual = new AtomicBoolean(true);
+        var tracker = new OffsetTracker();
+
+        var receiver = receiverOf(200);
+        var consumer = TestRecords.onConsumer(receiver);
+        var runner = new VirtualThreadRunner<>(receiver, tracker, VirtualThreadRunner.Ordering.NONE, 16,
+                                               Duration.ofHours(1));
+
+        StepVerifier.create(runner.run(r -> {
+                allVirtual.compareAndSet(true, Thread.currentThread().isVirtual());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                Thread.sleep(5);
+                running.decrementAndGet();
+            }))
+            .expectNextCount(200)
+            .verifyComplete();
+
+        assertTrue(allVirtual.get());
+        assertTrue(maxRunning.get() > 1, "handlers should overlap");
+        assertTrue(maxRunning.get() <= 16, "at most 16 handlers at a time, was " + maxRunning.get());
+        Mockito.verify(consumer).commitSync(Map.of(new TopicPartition("order-events", 0), new OffsetAndMetadata(100),
+                                                   new TopicPartition("order-events", 1), new OffsetAndMetadata(100)));
+        assertTrue(tracker.committable().isEmpty(), "the watermark is committed when the flux completes");
+    }
+
+    @Test
+    void testKeyOrderingRunsSameKeySequentially() {
+        var seen = new ConcurrentHashMap<String, List<Long>>();
+        var receiver = receiverOf(200);
+        TestRecords.onConsumer(receiver);
+        var runner = new VirtualThreadRunner<>(receiver, new OffsetTracker(), VirtualThreadRunner.Ordering.KEY, 8,
+                                               Duration.ofHours(1));
+
+        StepVerifier.create(runner.run(r -> {
+                Thread.sleep(1);
+                seen.computeIfAbsent(r.key(), k -> new ArrayList<>()).add(r.offset());
+            }))
+            .expectNextCount(200)
+            .verifyComplete();
+
+        assertEquals(10, seen.size());
+        seen.forEach((key, offsets) -> assertEquals(offsets.stream().sorted().toList(), offsets, key));
+    }
+
+    private KafkaReceiver<String, String> receiverOf(int count) {
+        var input = new ArrayList<ReceiverRecord<String, String>>();
+        for (int i = 0; i < count; i++) {
+            input.add(records.record("order-events", i % 2, i / 2, "key-" + (i % 10), "order-" + i));
+        }
+        KafkaReceiver<String, String> receiver = Mockito.mock();
+        Mockito.when(receiver.receive()).thenReturn(Flux.fromIterable(input));
+        return receiver;
+    }
+}
@@ -0,0 +1,103 @@
+package com.artyom.kafkapart1.group;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 6, topics = "group-events")
+class ConsumerGroupLauncherTest {
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testPolicyStepsOneMemberAtATimeWithinBounds() {
+        var policy = new ScalingPolicy(1, 4, 10_000, 100);
+
+        assertEquals(3, policy.desired(2, 50_000));
+        assertEquals(4, policy.desired(4, 50_000));
+        assertEquals(1, policy.desired(2, 0));
+        assertEquals(1, policy.desired(1, 0));
+        assertEquals(2, policy.desired(2, 5_000));
+        assertThrows(IllegalArgumentException.class, () -> new ScalingPolicy(2, 1, 10, 1));
+    }
+
+    @Test
+    void testMembersShareThePartitionsAndScaleDownRebalancesRightAway() throws Exception {
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "launcher-group",
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 45_000
+        );
+
+        try (var launcher = new ConsumerGroupLauncher<String, String>(consumerConfig, List.of("group-events"), "member",
+                                                                      KafkaReceiver::receive)) {
+            launcher.scaleTo(3);
+            await(() -> launcher.assignments().values().stream().allMatch(a -> a.size() == 2));
+            assertEquals(Set.of("member-1", "member-2", "member-3"), launcher.assignments().keySet());
+
+            long start = System.currentTimeMillis();
+            launcher.scaleTo(1);
+            await(() -> launcher.assignments().get("member-1").size() == 6);
+            assertTrue(System.currentTimeMillis() - start < 45_000, "rebalanced before the session timeout");
+
+            assertEquals(0, launcher.lag().block());
+
+            // scaling up again never reuses an id whose removal may still be in flight
+            launcher.scaleTo(2);
+            await(() -> launcher.assignments().values().stream().allMatch(a -> a.size() == 3));
+            assertEquals(Set.of("member-1", "member-4"), launcher.assignments().keySet());
+        }
+    }
+
+    @Test
+    void testMemberWhosePipelineFailsIsDropped() throws Exception {
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "launcher-failing-group",
+            ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, 45_000
+        );
+        Function<KafkaReceiver<String, String>, Publisher<?>> failing = receiver -> receiver.receive()
+            .take(Duration.ofSeconds(1))
+            .then(Mono.error(new IllegalStateException("pipeline failed")));
+
+        try (var launcher = new ConsumerGroupLauncher<>(consumerConfig, List.of("group-events"), "failing", failing)) {
+            launcher.scaleTo(2);
+            assertEquals(2, launcher.size());
+            await(() -> launcher.size() == 0);
+
+            launcher.scaleTo(1);
+            assertEquals(Set.of("failing-3"), launcher.assignments().keySet());
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + Duration.ofSeconds(40).toMillis();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not reached in time");
+            Thread.sleep(100);
+        }
+    }
+}
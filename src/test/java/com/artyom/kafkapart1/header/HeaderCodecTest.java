@@ -0,0 +1,50 @@
+package com.artyom.kafkapart1.header;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeaderCodecTest {
+
+    @Test
+    void testConstantHeadersAreInterned() {
+        var first = HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client");
+        var second = HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client");
+
+        assertSame(first, second);
+        assertSame(first.value(), second.value());
+        assertEquals("some-client", new String(first.value()));
+        assertNotSame(first, HeaderCodec.constant(HeaderCodec.CLIENT_ID, "other-client"));
+    }
+
+    @Test
+    void testLongValuesRoundTripAsFixedWidthBinary() {
+        for (long id : new long[]{0, 1, 123456, -1, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            var headers = new RecordHeaders();
+            headers.add(HeaderCodec.longValue(HeaderCodec.TRACING_ID, id));
+
+            assertEquals(Long.BYTES, headers.lastHeader(HeaderCodec.TRACING_ID).value().length);
+            assertEquals(id, HeaderCodec.readLong(headers, HeaderCodec.TRACING_ID, 42));
+        }
+    }
+
+    @Test
+    void testMissingOrMalformedLongHeaderReturnsDefault() {
+        var headers = new RecordHeaders();
+        assertEquals(-1, HeaderCodec.readLong(headers, HeaderCodec.TRACING_ID, -1));
+
+        headers.add(HeaderCodec.TRACING_ID, "123456".getBytes());
+        assertEquals(-1, HeaderCodec.readLong(headers, HeaderCodec.TRACING_ID, -1));
+    }
+
+    @Test
+    void testMatchesComparesBytesOfCopiedHeaders() {
+        var expected = HeaderCodec.constant(HeaderCodec.CLIENT_ID, "some-client");
+        var headers = new RecordHeaders();
+        headers.add(HeaderCodec.CLIENT_ID, "some-client".getBytes());
+
+        assertTrue(HeaderCodec.matches(headers, expected));
+        assertFalse(HeaderCodec.matches(new RecordHeaders(), expected));
+    }
+}
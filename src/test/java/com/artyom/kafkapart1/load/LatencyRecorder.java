@@ -0,0 +1,39 @@
+package com.artyom.kafkapart1.load;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    exact percentiles: the harness knows the message count up front, so one slot per record
+    is cheap enough and avoids bucket error in p999
+ */
+class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger size = new AtomicInteger();
+
+    LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    void record(long latencyMillis) {
+        int i = size.getAndIncrement();
+        if (i < samples.length) {
+            samples[i] = latencyMillis;
+        }
+    }
+
+    long[] sorted() {
+        var copy = Arrays.copyOf(samples, Math.min(size.get(), samples.length));
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,167 @@
+package com.artyom.kafkapart1.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.artyom.kafkapart1.load.LoadReport.LagSample;
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SendStats;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.sender.SenderRecord;
+
+/*
+    producer ---> kafka broker <----> consumer group (n members, like sec05 / sec06)
+
+    latency = consume time - record timestamp (CreateTime, stamped by the producer)
+    lag     = log end offsets - positions reached by the group
+ */
+public class LoadHarness {
+    private static final Logger log = LoggerFactory.getLogger(LoadHarness.class);
+
+    private final String bootstrapServers;
+
+    public LoadHarness(String bootstrapServers) {
+        this.bootstrapServers = bootstrapServers;
+    }
+
+    public LoadReport run(LoadScenario scenario) throws Exception {
+        var topic = scenario.topic() + "-" + UUID.randomUUID();
+        try (var admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers))) {
+            admin.createTopics(List.of(new NewTopic(topic, scenario.partitions(), (short) 1))).all().get();
+
+            var positions = new AtomicLongArray(scenario.partitions());
+            var latencies = new LatencyRecorder(scenario.messages());
+            var assigned = new AtomicInteger();
+            var groupId = "load-" + UUID.randomUUID();
+
+            var receivers = Flux.merge(IntStream.rangeClosed(1, scenario.consumers())
+                                           .mapToObj(i -> receive(topic, groupId, String.valueOf(i), assigned))
+                                           .toList());
+
+            var lag = Collections.synchronizedList(new ArrayList<LagSample>());
+            var start = System.currentTimeMillis();
+
+            var consumed = receivers
+                .doOnNext(r -> {
+                    latencies.record(System.currentTimeMillis() - r.timestamp());
+                    positions.accumulateAndGet(r.partition(), r.offset() + 1, Math::max);
+                    r.receiverOffset().acknowledge();
+                })
+                .take(scenario.messages())
+                .count()
+                .timeout(scenario.timeout())
+                .toFuture();
+
+            awaitAssignment(assigned, scenario.partitions(), scenario.timeout());
+
+            var lagSampler = Flux.interval(scenario.lagSampleInterval(), Schedulers.boundedElastic())
+                .subscribe(t -> lag.add(new LagSample(System.currentTimeMillis() - start,
+                                                      lag(admin, topic, scenario.partitions(), positions))));
+
+            var properties = new SenderProperties(bootstrapServers, scenario.profile(), scenario.maxInFlight(), Map.of());
+            var sender = new KafkaSenderFactory(properties).create(StringSerializer.class, ByteArraySerializer.class);
+            var payload = new byte[scenario.payloadBytes()];
+
+            var produceStart = System.currentTimeMillis();
+            var stats = SendStats.collect(sender.send(
+                    Flux.range(0, scenario.messages())
+                        .map(i -> SenderRecord.create(new ProducerRecord<>(topic, String.valueOf(i), payload), i))))
+                .doFinally(s -> sender.close())
+                .block(scenario.timeout());
+            var producerMillis = System.currentTimeMillis() - produceStart;
+
+            long count = consumed.get();
+            var endToEndMillis = System.currentTimeMillis() - produceStart;
+            lagSampler.dispose();
+            lag.add(new LagSample(System.currentTimeMillis() - start, lag(admin, topic, scenario.partitions(), positions)));
+
+            var sorted = latencies.sorted();
+            var report = new LoadReport(
+                scenario,
+                stats == null ? 0 : stats.acked(),
+                count,
+                producerMillis,
+                endToEndMillis,
+                LatencyRecorder.percentile(sorted, 50),
+                LatencyRecorder.percentile(sorted, 99),
+                LatencyRecorder.percentile(sorted, 99.9),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1],
+                List.copyOf(lag)
+            );
+            log.info("load report:\n{}", report);
+            return report;
+        }
+    }
+
+    private Flux<ReceiverRecord<String, byte[]>> receive(String topic, String groupId, String instanceId,
+                                                         AtomicInteger assigned) {
+        var consumerConfig = Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, groupId,
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+            ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, instanceId
+        );
+
+        var options = ReceiverOptions.<String, byte[]>create(consumerConfig)
+            .addAssignListener(p -> assigned.addAndGet(p.size()))
+            .addRevokeListener(p -> assigned.addAndGet(-p.size()))
+            .subscription(List.of(topic));
+
+        return KafkaReceiver.create(options).receive();
+    }
+
+    private static void awaitAssignment(AtomicInteger assigned, int partitions, Duration timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        while (assigned.get() < partitions && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+    }
+
+    private static long lag(AdminClient admin, String topic, int partitions, AtomicLongArray positions) {
+        var request = IntStream.range(0, partitions)
+            .boxed()
+            .collect(Collectors.toMap(p -> new TopicPartition(topic, p), p -> OffsetSpec.latest()));
+        try {
+            var endOffsets = admin.listOffsets(request).all().get();
+            long lag = 0;
+            for (var entry : endOffsets.entrySet()) {
+                lag += Math.max(0, entry.getValue().offset() - positions.get(entry.getKey().partition()));
+            }
+            return lag;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (ExecutionException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.artyom.kafkapart1.load;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka
+class LoadHarnessTest {
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testScenarioReportsThroughputLatencyAndLag() throws Exception {
+        var scenario = LoadScenario.fromSystemProperties();
+
+        var report = new LoadHarness(broker.getBrokersAsString()).run(scenario);
+
+        assertEquals(scenario.messages(), report.produced());
+        assertEquals(scenario.messages(), report.consumed());
+        assertTrue(report.producerThroughput() > 0);
+        assertTrue(report.endToEndThroughput() > 0);
+        assertTrue(report.p50Millis() <= report.p99Millis());
+        assertTrue(report.p99Millis() <= report.p999Millis());
+        assertTrue(report.p999Millis() <= report.maxMillis());
+        assertFalse(report.lag().isEmpty());
+    }
+}
@@ -0,0 +1,45 @@
+package com.artyom.kafkapart1.load;
+
+import java.util.List;
+
+public record LoadReport(
+    LoadScenario scenario,
+    long produced,
+    long consumed,
+    long producerMillis,
+    long endToEndMillis,
+    long p50Millis,
+    long p99Millis,
+    long p999Millis,
+    long maxMillis,
+    List<LagSample> lag
+) {
+
+    public record LagSample(long elapsedMillis, long lag) {
+    }
+
+    public double producerThroughput() {
+        return produced * 1000.0 / Math.max(1, producerMillis);
+    }
+
+    public double endToEndThroughput() {
+        return consumed * 1000.0 / Math.max(1, endToEndMillis);
+    }
+
+    public long maxLag() {
+        return lag.stream().mapToLong(LagSample::lag).max().orElse(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "messages=%d x %dB, partitions=%d, consumers=%d, profile=%s%n" +
+            "  produced=%d in %d ms (%.0f msg/s), consumed=%d in %d ms (%.0f msg/s)%n" +
+            "  latency p50=%d ms, p99=%d ms, p999=%d ms, max=%d ms%n" +
+            "  lag max=%d, samples=%s",
+            scenario.messages(), scenario.payloadBytes(), scenario.partitions(), scenario.consumers(), scenario.profile(),
+            produced, producerMillis, producerThroughput(), consumed, endToEndMillis, endToEndThroughput(),
+            p50Millis, p99Millis, p999Millis, maxMillis,
+            maxLag(), lag.stream().map(s -> s.elapsedMillis() + "ms:" + s.lag()).toList());
+    }
+}
@@ -0,0 +1,54 @@
+package com.artyom.kafkapart1.load;
+
+import java.time.Duration;
+
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import lombok.Builder;
+
+/*
+    one producer -> broker -> consumer group run
+
+    every value can be overridden with -Dload.<name>, e.g.
+    ./mvnw test -Dtest=LoadHarnessTest -Dload.messages=1000000 -Dload.profile=HIGH_THROUGHPUT
+ */
+@Builder(toBuilder = true)
+public record LoadScenario(
+    String topic,
+    int messages,
+    int payloadBytes,
+    int partitions,
+    int consumers,
+    ThroughputProfile profile,
+    int maxInFlight,
+    Duration lagSampleInterval,
+    Duration timeout
+) {
+
+    public static LoadScenario defaults() {
+        return LoadScenario.builder()
+            .topic("load-events")
+            .messages(20_000)
+            .payloadBytes(100)
+            .partitions(3)
+            .consumers(3)
+            .profile(ThroughputProfile.HIGH_THROUGHPUT)
+            .maxInFlight(1024)
+            .lagSampleInterval(Duration.ofMillis(250))
+            .timeout(Duration.ofMinutes(2))
+            .build();
+    }
+
+    public static LoadScenario fromSystemProperties() {
+        var d = defaults();
+        return d.toBuilder()
+            .topic(System.getProperty("load.topic", d.topic()))
+            .messages(Integer.getInteger("load.messages", d.messages()))
+            .payloadBytes(Integer.getInteger("load.payloadBytes", d.payloadBytes()))
+            .partitions(Integer.getInteger("load.partitions", d.partitions()))
+            .consumers(Integer.getInteger("load.consumers", d.consumers()))
+            .profile(ThroughputProfile.valueOf(System.getProperty("load.profile", d.profile().name())))
+            .maxInFlight(Integer.getInteger("load.maxInFlight", d.maxInFlight()))
+            .timeout(Duration.ofSeconds(Long.getLong("load.timeoutSeconds", d.timeout().toSeconds())))
+            .build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.artyom.kafkapart1.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+
+import com.artyom.kafkapart1.consumer.TestRecords;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final KafkaMetrics metrics = new KafkaMetrics(registry);
+
+    @Test
+    void testSenderMetricsCountAcksAndTrackInFlight() {
+        var senderMetrics = metrics.sender("orders", 256);
+        var records = Flux.range(1, 5)
+            .map(i -> SenderRecord.create(new ProducerRecord<>("order-events", String.valueOf(i), "order-" + i), i));
+
+        StepVerifier.create(senderMetrics.send(delayingSender(), records))
+            .assertNext(r -> assertEquals(1, r.correlationMetadata()))
+            .expectNextCount(4)
+            .verifyComplete();
+
+        assertEquals(5, registry.get("kafka.sender.records").tag("result", "acked").counter().count());
+        assertEquals(5, registry.get("kafka.sender.ack.latency").timer().count());
+        assertEquals(0, registry.get("kafka.sender.in.flight").gauge().value());
+        assertEquals(256, registry.get("kafka.sender.max.in.flight").gauge().value());
+    }
+
+    @Test
+    void testReceiverMetricsCountPerPartitionAndTimeHandlers() {
+        var receiverMetrics = metrics.receiver("demo-group");
+        var records = new TestRecords();
+        var handler = receiverMetrics.<String, String>timed(r -> Mono.delay(Duration.ofMillis(2)).then());
+
+        Flux.just(records.record("order-events", 0, 0, "a", "1"),
+                  records.record("order-events", 1, 0, "b", "2"),
+                  records.record("order-events", 1, 1, "c", "3"))
+            .concatMap(handler)
+            .then(receiverMetrics.timedCommit(Mono.empty()))
+            .block();
+
+        assertEquals(1, registry.get("kafka.receiver.records").tag("partition", "0").counter().count());
+        assertEquals(2, registry.get("kafka.receiver.records").tag("partition", "1").counter().count());
+        assertEquals(3, registry.get("kafka.receiver.processing").timer().count());
+        assertEquals(1, registry.get("kafka.receiver.commit").timer().count());
+    }
+
+    @Test
+    void testBindRegistersClientMetricListeners() {
+        var senderOptions = metrics.bind(SenderOptions.<String, String>create(
+            Map.of("key.serializer", StringSerializer.class)), "orders");
+        var receiverOptions = metrics.bind(ReceiverOptions.<String, String>create(
+            Map.of(ConsumerConfig.GROUP_ID_CONFIG, "demo-group")), "demo-group");
+
+        assertNotNull(senderOptions.producerListener());
+        assertNotNull(receiverOptions.consumerListener());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaSender<String, String> delayingSender() {
+        KafkaSender<String, String> sender = Mockito.mock();
+        Mockito.when(sender.send(ArgumentMatchers.<Publisher<SenderRecord<String, String, Object>>>any()))
+            .thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<String, String, Object>>>getArgument(0))
+                .delayElements(Duration.ofMillis(1))
+                .map(record -> {
+                    SenderResult<Object> result = Mockito.mock();
+                    Mockito.when(result.correlationMetadata()).thenReturn(record.correlationMetadata());
+                    return result;
+                }));
+        return sender;
+    }
+}
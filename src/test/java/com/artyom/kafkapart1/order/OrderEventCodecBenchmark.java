@@ -0,0 +1,64 @@
+package com.artyom.kafkapart1.order;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/*
+    binary codec vs gson json for the same event (18 vs 114 bytes encoded)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderEventCodecBenchmark {
+
+    private static final String TOPIC = "order-events";
+
+    private final OrderEventSerializer binarySerializer = new OrderEventSerializer();
+    private final OrderEventDeserializer binaryDeserializer = new OrderEventDeserializer();
+    private final OrderEventJsonSerializer jsonSerializer = new OrderEventJsonSerializer();
+    private final OrderEventJsonDeserializer jsonDeserializer = new OrderEventJsonDeserializer();
+
+    private OrderEvent event;
+    private byte[] binary;
+    private byte[] json;
+
+    @Setup
+    public void setUp() {
+        event = new OrderEvent(1_000_001, 42, OrderStatus.PAID, 12_999, "EUR", 1_760_000_000_000L);
+        binary = binarySerializer.serialize(TOPIC, event);
+        json = jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serializeBinary() {
+        return binarySerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() {
+        return jsonSerializer.serialize(TOPIC, event);
+    }
+
+    @Benchmark
+    public OrderEvent deserializeBinary() {
+        return binaryDeserializer.deserialize(TOPIC, binary);
+    }
+
+    @Benchmark
+    public OrderEvent deserializeJson() {
+        return jsonDeserializer.deserialize(TOPIC, json);
+    }
+}
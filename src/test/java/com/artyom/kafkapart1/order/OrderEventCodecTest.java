@@ -0,0 +1,60 @@
+package com.artyom.kafkapart1.order;
+
+import java.util.Arrays;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderEventCodecTest {
+
+    private static final OrderEvent EVENT =
+        new OrderEvent(1_000_001, 42, OrderStatus.PAID, 12_999, "EUR", 1_760_000_000_000L);
+
+    @Test
+    void testBinaryRoundTrip() {
+        var serializer = new OrderEventSerializer();
+        var deserializer = new OrderEventDeserializer();
+
+        for (var event : new OrderEvent[]{
+            EVENT,
+            new OrderEvent(0, 0, OrderStatus.CREATED, 0, "USD", 0),
+            new OrderEvent(Long.MAX_VALUE, -1, OrderStatus.CANCELLED, -500, "AMD", Long.MIN_VALUE)
+        }) {
+            assertEquals(event, deserializer.deserialize("order-events", serializer.serialize("order-events", event)));
+        }
+        assertNull(serializer.serialize("order-events", null));
+        assertNull(deserializer.deserialize("order-events", null));
+    }
+
+    @Test
+    void testBinaryIsSmallerThanJson() {
+        var binary = new OrderEventSerializer().serialize("order-events", EVENT);
+        var json = new OrderEventJsonSerializer().serialize("order-events", EVENT);
+
+        assertEquals(EVENT, new OrderEventJsonDeserializer().deserialize("order-events", json));
+        assertTrue(binary.length * 4 < json.length, binary.length + " vs " + json.length);
+    }
+
+    @Test
+    void testInvalidInputIsRejected() {
+        assertThrows(SerializationException.class,
+                     () -> OrderEventCodec.encode(new OrderEvent(1, 1, OrderStatus.PAID, 1, "EURO", 1)));
+        for (var currency : new String[]{"eur", "E1R", "ÉUR", "€UR", "\u0145UR"}) {
+            assertThrows(SerializationException.class,
+                         () -> OrderEventCodec.encode(new OrderEvent(1, 1, OrderStatus.PAID, 1, currency, 1)), currency);
+        }
+
+        var badCurrency = OrderEventCodec.encode(EVENT);
+        badCurrency[badCurrency.length - 1 - OrderEventCodec.varintSize(EVENT.createdAt()) - 2] = (byte) 0xC9;
+        assertThrows(SerializationException.class, () -> OrderEventCodec.decode(badCurrency));
+
+        var truncated = Arrays.copyOf(OrderEventCodec.encode(EVENT), 5);
+        assertThrows(SerializationException.class, () -> OrderEventCodec.decode(truncated));
+
+        var unknownVersion = OrderEventCodec.encode(EVENT);
+        unknownVersion[0] = 9;
+        assertThrows(SerializationException.class, () -> OrderEventCodec.decode(unknownVersion));
+    }
+}
@@ -0,0 +1,145 @@
+package com.artyom.kafkapart1.passthrough;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.artyom.kafkapart1.consumer.OffsetTracker;
+import com.artyom.kafkapart1.consumer.TestRecords;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.receiver.ReceiverRecord;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PassThroughRelayTest {
+
+    private static final byte[] CLIENT = ByteViews.utf8("some-client");
+    private static final byte[] ORDER_PREFIX = ByteViews.utf8("order-");
+
+    @Test
+    void testRecordsAreForwardedWithoutCopyingValueOrHeaders() {
+        var deserializer = new ByteBufferDeserializer();
+        var input = new ArrayList<ReceiverRecord<byte[], ByteBuffer>>();
+        for (int i = 0; i < 6; i++) {
+            var headers = new RecordHeaders();
+            headers.add("client-id", i % 3 == 0 ? ByteViews.utf8("other") : CLIENT);
+            var value = deserializer.deserialize("order-events", ByteViews.utf8((i == 4 ? "refund-" : "order-") + i));
+            input.add(record(i, value, headers));
+        }
+
+        var sent = new ArrayList<SenderRecord<byte[], ByteBuffer, ReceiverRecord<byte[], ByteBuffer>>>();
+        var tracker = new OffsetTracker();
+        var receiver = receiverOf(input);
+        var consumer = TestRecords.onConsumer(receiver);
+        var relay = new PassThroughRelay(receiver, senderCapturing(sent, -1), tracker,
+                                         r -> ByteViews.headerEquals(r.headers(), "client-id", CLIENT)
+                                              && ByteViews.startsWith(r.value(), ORDER_PREFIX) ? "order-events-mirror" : null,
+                                         Duration.ofHours(1));
+
+        StepVerifier.create(relay.relay())
+            .expectNext(3L)
+            .verifyComplete();
+
+        assertEquals(List.of(1L, 2L, 5L), sent.stream().map(s -> s.correlationMetadata().offset()).toList());
+        for (var record : sent) {
+            var source = record.correlationMetadata();
+            assertEquals("order-events-mirror", record.topic());
+            assertSame(source.value(), record.value());
+            assertSame(source.headers().lastHeader("client-id"), record.headers().lastHeader("client-id"));
+            assertSame(source.value().array(), new ByteBufferSerializer().serialize(record.topic(), record.value()));
+        }
+        Mockito.verify(consumer).commitSync(Map.of(new TopicPartition("order-events", 0), new OffsetAndMetadata(6)));
+        assertTrue(tracker.committable().isEmpty(), "the watermark is committed when the relay completes");
+    }
+
+    @Test
+    void testFailedSendStopsTheRelayBeforeItsOffset() {
+        var deserializer = new ByteBufferDeserializer();
+        var input = new ArrayList<ReceiverRecord<byte[], ByteBuffer>>();
+        for (int i = 0; i < 5; i++) {
+            input.add(record(i, deserializer.deserialize("order-events", ByteViews.utf8("order-" + i)), new RecordHeaders()));
+        }
+        var receiver = receiverOf(input);
+        var consumer = TestRecords.onConsumer(receiver);
+        var relay = new PassThroughRelay(receiver, senderCapturing(new ArrayList<>(), 2), new OffsetTracker(),
+                                         r -> "order-events-mirror", Duration.ofHours(1));
+
+        StepVerifier.create(relay.relay())
+            .expectErrorMessage("record too large")
+            .verify(Duration.ofSeconds(10));
+
+        Mockito.verify(consumer).commitSync(Map.of(new TopicPartition("order-events", 0), new OffsetAndMetadata(2)));
+    }
+
+    @Test
+    void testByteViewsReadWithoutMovingPosition() {
+        var value = ByteBuffer.wrap(ByteViews.utf8("order-42"));
+        assertTrue(ByteViews.startsWith(value, ORDER_PREFIX));
+        assertFalse(ByteViews.startsWith(value, ByteViews.utf8("order-42-and-more")));
+        assertEquals(0, value.position());
+
+        var headers = new RecordHeaders();
+        headers.add("tracing-id", ByteViews.utf8("123456"));
+        assertTrue(ByteViews.header(headers, "tracing-id").isReadOnly());
+        assertNull(ByteViews.header(headers, "client-id"));
+    }
+
+    private static ReceiverRecord<byte[], ByteBuffer> record(long offset, ByteBuffer value, RecordHeaders headers) {
+        var consumerRecord = new ConsumerRecord<>("order-events", 0, offset, 0L, TimestampType.CREATE_TIME,
+                                                  0, value.remaining(), ByteViews.utf8(String.valueOf(offset)), value,
+                                                  headers, Optional.empty());
+        ReceiverOffset receiverOffset = Mockito.mock();
+        Mockito.when(receiverOffset.topicPartition()).thenReturn(new TopicPartition("order-events", 0));
+        Mockito.when(receiverOffset.offset()).thenReturn(offset);
+        return new ReceiverRecord<>(consumerRecord, receiverOffset);
+    }
+
+    private static KafkaReceiver<byte[], ByteBuffer> receiverOf(List<ReceiverRecord<byte[], ByteBuffer>> records) {
+        KafkaReceiver<byte[], ByteBuffer> receiver = Mockito.mock();
+        Mockito.when(receiver.receive()).thenReturn(Flux.fromIterable(records));
+        return receiver;
+    }
+
+    /*
+        acks every record, the one at failingOffset with an exception (stopOnError(false) style)
+     */
+    @SuppressWarnings("unchecked")
+    private static KafkaSender<byte[], ByteBuffer> senderCapturing(
+        List<SenderRecord<byte[], ByteBuffer, ReceiverRecord<byte[], ByteBuffer>>> sent, long failingOffset) {
+        KafkaSender<byte[], ByteBuffer> sender = Mockito.mock();
+        Mockito.when(sender.send(ArgumentMatchers.<Publisher<SenderRecord<byte[], ByteBuffer, Object>>>any()))
+            .thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<byte[], ByteBuffer, ReceiverRecord<byte[], ByteBuffer>>>>getArgument(0))
+                .doOnNext(sent::add)
+                .map(record -> {
+                    SenderResult<ReceiverRecord<byte[], ByteBuffer>> result = Mockito.mock();
+                    Mockito.when(result.correlationMetadata()).thenReturn(record.correlationMetadata());
+                    if (record.correlationMetadata().offset() == failingOffset) {
+                        Mockito.when(result.exception()).thenReturn(new RecordTooLargeException("record too large"));
+                    }
+                    return result;
+                }));
+        return sender;
+    }
+}
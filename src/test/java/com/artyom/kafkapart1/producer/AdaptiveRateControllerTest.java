@@ -0,0 +1,94 @@
+package com.artyom.kafkapart1.producer;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveRateControllerTest {
+
+    private static final long TARGET_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private AdaptiveRateController controller(double initialRate) {
+        return new AdaptiveRateController(initialRate, 100, 10_000, 500, Duration.ofMillis(50), Duration.ofSeconds(1));
+    }
+
+    @Test
+    void testRateIncreasesAdditivelyWhileHealthy() {
+        var controller = controller(1_000);
+        controller.adjust(1_000, 0, 0, 1_000 * TARGET_NANOS / 2, 0.9);
+        controller.adjust(1_000, 0, 0, 1_000 * TARGET_NANOS / 2, 0.9);
+        assertEquals(2_000, controller.rate());
+    }
+
+    @Test
+    void testRateDecreasesMultiplicativelyUnderPressure() {
+        var controller = controller(8_000);
+
+        controller.adjust(1_000, 0, 0, 1_000 * TARGET_NANOS * 2, 0.9);
+        assertEquals(6_400, controller.rate(), 0.001, "slow acks");
+
+        controller.adjust(1_000, 50, 0, 0, 0.9);
+        assertEquals(4_480, controller.rate(), 0.001, "error rate above 1%");
+
+        controller.adjust(1_000, 0, 0, 0, 0.1);
+        assertEquals(3_136, controller.rate(), 0.001, "buffer.memory nearly used up");
+
+        controller.adjust(1_000, 1, 1, 0, 0.9);
+        assertEquals(1_568, controller.rate(), 0.001, "buffer exhausted");
+    }
+
+    @Test
+    void testRateStaysWithinBounds() {
+        var controller = controller(9_900);
+        controller.adjust(1_000, 0, 0, 0, 1.0);
+        assertEquals(10_000, controller.rate());
+
+        for (int i = 0; i < 20; i++) {
+            controller.adjust(0, 10, 10, 0, 0);
+        }
+        assertEquals(100, controller.rate());
+    }
+
+    @Test
+    void testEmissionIsPacedToCurrentRate() {
+        var controller = controller(1_000);
+        var records = Flux.range(0, 300)
+            .map(i -> SenderRecord.create(new ProducerRecord<>("order-events", String.valueOf(i), "order-" + i), i));
+
+        long start = System.nanoTime();
+        StepVerifier.create(controller.send(echoSender(), records))
+            .expectNextCount(300)
+            .verifyComplete();
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // 300 records at 1000/s with a 10 record burst
+        assertTrue(millis >= 250, "finished too fast: " + millis + " ms");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaSender<String, String> echoSender() {
+        KafkaSender<String, String> sender = Mockito.mock();
+        Mockito.when(sender.doOnProducer(ArgumentMatchers.any())).thenReturn(Mono.empty());
+        Mockito.when(sender.send(ArgumentMatchers.<Publisher<SenderRecord<String, String, Object>>>any()))
+            .thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<String, String, Object>>>getArgument(0))
+                .map(record -> {
+                    SenderResult<Object> result = Mockito.mock();
+                    Mockito.when(result.correlationMetadata()).thenReturn(record.correlationMetadata());
+                    return result;
+                }));
+        return sender;
+    }
+}
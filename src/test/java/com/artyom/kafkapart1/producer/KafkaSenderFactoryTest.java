@@ -0,0 +1,59 @@
+package com.artyom.kafkapart1.producer;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.SenderResult;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaSenderFactoryTest {
+
+    @Test
+    void testProfileSettingsAreApplied() {
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.HIGH_THROUGHPUT));
+
+        var options = factory.senderOptions(StringSerializer.class, StringSerializer.class);
+        var config = options.producerProperties();
+
+        assertEquals(20, config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(256 * 1024, config.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("lz4", config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("1", config.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals(false, config.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+        assertEquals(StringSerializer.class, config.get(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG));
+        assertEquals("localhost:9092", config.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+        assertEquals(1024, options.maxInFlight());
+    }
+
+    @Test
+    void testOverridesWinOverProfile() {
+        var properties = new SenderProperties("broker:9092", ThroughputProfile.DURABLE, 10_000,
+                                              Map.of(ProducerConfig.LINGER_MS_CONFIG, "50"));
+        var config = new KafkaSenderFactory(properties).producerConfig();
+
+        assertEquals("50", config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("all", config.get(ProducerConfig.ACKS_CONFIG));
+        assertEquals("broker:9092", config.get(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG));
+    }
+
+    @Test
+    void testSendStatsCountsAcksAndFailures() {
+        SenderResult<String> ok = Mockito.mock();
+        SenderResult<String> failed = Mockito.mock();
+        Mockito.when(failed.exception()).thenReturn(new RuntimeException("boom"));
+
+        StepVerifier.create(SendStats.collect(Flux.just(ok, ok, failed, ok)))
+            .assertNext(stats -> {
+                assertEquals(3, stats.acked());
+                assertEquals(1, stats.failed());
+                assertTrue(stats.recordsPerSecond() > 0);
+            })
+            .verifyComplete();
+    }
+}
@@ -0,0 +1,158 @@
+package com.artyom.kafkapart1.replay;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 2, topics = {"replay-events", "replay-transactions"},
+               brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"})
+class ReplayEngineTest {
+
+    private static final String TOPIC = "replay-events";
+    private static final String TRANSACTIONAL_TOPIC = "replay-transactions";
+    private static final int MESSAGES = 200;
+    private static final Instant BASE = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private ReplayEngine<String, String> engine;
+
+    @BeforeEach
+    void produceOnce() {
+        engine = new ReplayEngine<>(Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, "ignored-by-replay"
+        ));
+        var ranges = engine.resolve(ReplayRequest.all(TOPIC, ReplayPosition.earliest(), ReplayPosition.latest())).block();
+        if (ranges.stream().mapToLong(PartitionRange::size).sum() > 0) {
+            return;
+        }
+        // record i: partition i % 2, offset i / 2, timestamp BASE + i seconds
+        var sender = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DEFAULT)
+                                                .withBootstrapServers(broker.getBrokersAsString()))
+            .createStringSender();
+        StepVerifier.create(sender.send(Flux.range(0, MESSAGES)
+                                            .map(i -> new ProducerRecord<>(TOPIC, i % 2, BASE.plusSeconds(i).toEpochMilli(),
+                                                                           String.valueOf(i), "order-" + i))
+                                            .map(record -> SenderRecord.create(record, record.key())))
+                                .doFinally(s -> sender.close()))
+            .expectNextCount(MESSAGES)
+            .verifyComplete();
+    }
+
+    @Test
+    void testReplayFromBeginningStopsAtLogEnd() {
+        StepVerifier.create(engine.replay(ReplayRequest.all(TOPIC, ReplayPosition.earliest(), ReplayPosition.latest())))
+            .expectNextCount(MESSAGES)
+            .verifyComplete();
+    }
+
+    @Test
+    void testReplayOfAbsoluteOffsetRange() {
+        var offsets = engine.replay(ReplayRequest.partition(TOPIC, 0, ReplayPosition.offset(20), ReplayPosition.offset(50)))
+            .map(ConsumerRecord::offset)
+            .collectList()
+            .block();
+
+        assertEquals(30, offsets.size());
+        assertEquals(20, offsets.getFirst());
+        assertEquals(49, offsets.getLast());
+    }
+
+    @Test
+    void testReplayOfTimestampWindow() {
+        var keys = engine.replay(ReplayRequest.all(TOPIC, ReplayPosition.timestamp(BASE.plusSeconds(50)),
+                                                   ReplayPosition.timestamp(BASE.plusSeconds(100))))
+            .map(r -> Integer.parseInt(r.key()))
+            .sort()
+            .collectList()
+            .block();
+
+        assertEquals(50, keys.size());
+        assertEquals(50, keys.getFirst());
+        assertEquals(99, keys.getLast());
+    }
+
+    @Test
+    void testRangesAreClampedToTheLog() {
+        var ranges = engine.resolve(ReplayRequest.partition(TOPIC, 1, ReplayPosition.offset(90), ReplayPosition.offset(10_000)))
+            .block();
+
+        assertEquals(List.of(new PartitionRange(new TopicPartition(TOPIC, 1), 90, 100)), ranges);
+        StepVerifier.create(engine.replay(ReplayRequest.all(TOPIC, ReplayPosition.timestamp(BASE.plusSeconds(1_000)),
+                                                            ReplayPosition.latest())))
+            .verifyComplete();
+    }
+
+    @Test
+    void testReplayCompletesWhenTheLogEndsWithTransactionMarkers() {
+        // partition 0: 10 committed records, commit marker, 5 aborted records, abort marker
+        try (var producer = new KafkaProducer<String, String>(Map.of(
+            ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+            ProducerConfig.TRANSACTIONAL_ID_CONFIG, "replay-test-tx"))) {
+            producer.initTransactions();
+            producer.beginTransaction();
+            for (int i = 0; i < 10; i++) {
+                producer.send(new ProducerRecord<>(TRANSACTIONAL_TOPIC, 0, "committed-" + i, "v"));
+            }
+            producer.commitTransaction();
+            producer.beginTransaction();
+            for (int i = 0; i < 5; i++) {
+                producer.send(new ProducerRecord<>(TRANSACTIONAL_TOPIC, 0, "aborted-" + i, "v"));
+            }
+            producer.flush();
+            producer.abortTransaction();
+        }
+        var request = ReplayRequest.partition(TRANSACTIONAL_TOPIC, 0, ReplayPosition.earliest(), ReplayPosition.latest());
+        assertEquals(17, engine.resolve(request).block().getFirst().end());
+
+        StepVerifier.create(engine.replay(request))
+            .expectNextCount(15)
+            .expectComplete()
+            .verify(Duration.ofSeconds(30));
+
+        var readCommitted = new ReplayEngine<String, String>(Map.of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed"
+        ));
+        var keys = readCommitted.replay(request)
+            .map(ConsumerRecord::key)
+            .collectList()
+            .block(Duration.ofSeconds(30));
+
+        assertEquals(10, keys.size());
+        assertTrue(keys.stream().allMatch(key -> key.startsWith("committed-")));
+    }
+}
@@ -0,0 +1,118 @@
+package com.artyom.kafkapart1.retry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 2, topics = {"payments", "payments-retry-300ms", "payments-retry-1s", "payments-dlt"})
+class RetryingReceiverTest {
+
+    private static final RetryTopology TOPOLOGY = RetryTopology.of("payments", Duration.ofMillis(300), Duration.ofSeconds(1));
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @Test
+    void testTopologyNamesAndRouting() {
+        var topology = RetryTopology.of("order-events", Duration.ofSeconds(1), Duration.ofSeconds(10), Duration.ofMinutes(1));
+
+        assertEquals(List.of("order-events", "order-events-retry-1s", "order-events-retry-10s", "order-events-retry-1m"),
+                     topology.consumedTopics());
+        assertEquals("order-events-retry-1s", topology.next(0).topic());
+        assertEquals("order-events-retry-1m", topology.next(2).topic());
+        assertNull(topology.next(3));
+        assertEquals("order-events-dlt", topology.deadLetterTopic());
+    }
+
+    @Test
+    void testFailedRecordsAreRetriedWithDelayThenDeadLettered() {
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DEFAULT)
+                                                 .withBootstrapServers(broker.getBrokersAsString()));
+        var sender = factory.createStringSender();
+        StepVerifier.create(sender.send(Flux.range(0, 50)
+                                            .map(i -> i == 10 ? "poison" : i == 20 ? "flaky" : "payment-" + i)
+                                            .map(key -> SenderRecord.create(new ProducerRecord<>("payments", key, key), key))))
+            .expectNextCount(50)
+            .verifyComplete();
+
+        var handled = new CopyOnWriteArrayList<String>();
+        var attempts = new ConcurrentHashMap<String, List<Long>>();
+        var retrying = new RetryingReceiver<String, String>(TOPOLOGY, sender, record -> {
+            attempts.computeIfAbsent(record.key(), k -> new CopyOnWriteArrayList<>()).add(System.currentTimeMillis());
+            if (record.key().equals("poison") || (record.key().equals("flaky") && RetryHeaders.attempt(record.headers()) == 0)) {
+                return Mono.error(new IllegalArgumentException("cannot handle " + record.key()));
+            }
+            handled.add(record.key());
+            return Mono.empty();
+        });
+        var options = retrying.bind(ReceiverOptions.<String, String>create(consumerConfig("payments-group")))
+            .subscription(TOPOLOGY.consumedTopics());
+
+        StepVerifier.create(retrying.run(KafkaReceiver.create(options)).take(53))
+            .recordWith(CopyOnWriteArrayList::new)
+            .expectNextCount(53)
+            .consumeRecordedWith(outcomes -> {
+                assertEquals(49, outcomes.stream().filter(o -> o == RetryingReceiver.Outcome.HANDLED).count());
+                assertEquals(3, outcomes.stream().filter(o -> o == RetryingReceiver.Outcome.RETRIED).count());
+            })
+            .verifyComplete();
+
+        assertEquals(49, handled.size());
+        assertTrue(handled.indexOf("payment-49") < handled.indexOf("flaky"), "healthy records are not held back by the retry");
+
+        var flaky = attempts.get("flaky");
+        assertTrue(flaky.get(1) - flaky.get(0) >= 300, "retried after " + (flaky.get(1) - flaky.get(0)) + " ms");
+        var poison = attempts.get("poison");
+        assertEquals(3, poison.size());
+        assertTrue(poison.get(2) - poison.get(1) >= 1_000);
+
+        var deadLetters = KafkaReceiver.create(ReceiverOptions.<String, String>create(consumerConfig("dlt-reader"))
+                                                   .subscription(List.of("payments-dlt")))
+            .receive()
+            .take(1)
+            .timeout(Duration.ofSeconds(30))
+            .collectList()
+            .block();
+        sender.close();
+
+        var deadLetter = deadLetters.getFirst();
+        assertEquals("poison", deadLetter.key());
+        assertEquals(3, RetryHeaders.attempt(deadLetter.headers()));
+        assertEquals("payments", new String(deadLetter.headers().lastHeader(RetryHeaders.ORIGINAL_TOPIC).value()));
+        assertTrue(new String(deadLetter.headers().lastHeader(RetryHeaders.EXCEPTION).value()).contains("cannot handle poison"));
+    }
+
+    private Map<String, Object> consumerConfig(String groupId) {
+        return Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, groupId,
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        );
+    }
+}
@@ -0,0 +1,115 @@
+package com.artyom.kafkapart1.state;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serdes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.ReceiverOffset;
+import reactor.kafka.sender.KafkaSender;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka
+class ChangelogStoreTest {
+
+    private static final String CHANGELOG = "order-counts-changelog";
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    @BeforeEach
+    void createChangelog() throws Exception {
+        try (var admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            if (!admin.listTopics().names().get().contains(CHANGELOG)) {
+                admin.createTopics(List.of(ChangelogStore.changelogTopic(CHANGELOG, 2, (short) 1))).all().get();
+            }
+        }
+    }
+
+    @Test
+    void testStateIsRestoredFromChangelogAndCaughtUpIncrementally() {
+        var first = store();
+        assertEquals(0, first.restore(List.of(0, 1)));
+
+        ReceiverOffset source = Mockito.mock();
+        for (int i = 0; i < 1_000; i++) {
+            var customer = "customer-" + (i % 10);
+            var count = first.get(i % 2, customer);
+            first.put(i % 2, customer, count == null ? 1L : count + 1, source);
+        }
+        first.put(0, "customer-0", null, source);
+        first.close().block(Duration.ofSeconds(10));
+        Mockito.verify(source, Mockito.times(1_001)).acknowledge();
+
+        var second = store();
+        assertEquals(1_001, second.restore(List.of(0, 1)));
+        assertNull(second.get(0, "customer-0"));
+        assertEquals(100L, second.get(0, "customer-2"));
+        assertEquals(100L, second.get(1, "customer-9"));
+        assertEquals(4, second.size(0));
+
+        second.put(0, "customer-2", 500L, null);
+        second.close().block(Duration.ofSeconds(10));
+
+        // first already holds everything up to its own writes, only the new record is read
+        assertEquals(1, first.restore(List.of(0)));
+        assertEquals(500L, first.get(0, "customer-2"));
+    }
+
+    @Test
+    void testUnrestoredPartitionIsRejected() {
+        var store = store();
+        assertThrows(IllegalStateException.class, () -> store.get(1, "customer-1"));
+        store.close().block(Duration.ofSeconds(10));
+    }
+
+    @Test
+    void testFailedChangelogWriteFailsLaterPutsAndWrites() {
+        KafkaSender<byte[], byte[]> sender = Mockito.mock();
+        Mockito.when(sender.send(Mockito.any()))
+            .thenAnswer(invocation -> Flux.from(invocation.<Publisher<?>>getArgument(0))
+                .concatMap(record -> Flux.error(new KafkaException("not enough replicas"))));
+        var store = new ChangelogStore<>(CHANGELOG, Serdes.String(), Serdes.Long(), sender,
+                                         Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+        store.restore(List.of(0));
+
+        ReceiverOffset source = Mockito.mock();
+        store.put(0, "customer-1", 1L, source);
+
+        var error = assertThrows(IllegalStateException.class, () -> store.put(0, "customer-1", 2L, source));
+        assertInstanceOf(KafkaException.class, error.getCause());
+        assertEquals(1L, store.get(0, "customer-1"));
+        Mockito.verify(source, Mockito.never()).acknowledge();
+        StepVerifier.create(store.writes())
+            .expectError(KafkaException.class)
+            .verify(Duration.ofSeconds(10));
+    }
+
+    private ChangelogStore<String, Long> store() {
+        var factory = new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DURABLE)
+                                                 .withBootstrapServers(broker.getBrokersAsString()));
+        KafkaSender<byte[], byte[]> sender = factory.create(ByteArraySerializer.class, ByteArraySerializer.class);
+        return new ChangelogStore<>(CHANGELOG, Serdes.String(), Serdes.Long(), sender,
+                                    Map.of(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()));
+    }
+}
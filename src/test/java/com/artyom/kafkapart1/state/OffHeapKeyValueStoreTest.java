@@ -0,0 +1,56 @@
+package com.artyom.kafkapart1.state;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import com.artyom.kafkapart1.passthrough.ByteViews;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapKeyValueStoreTest {
+
+    @Test
+    void testPutGetOverwriteDelete() {
+        var store = new OffHeapKeyValueStore();
+        store.put(ByteViews.utf8("customer-1"), ByteViews.utf8("3"));
+        store.put(ByteViews.utf8("customer-2"), ByteViews.utf8("5"));
+        store.put(ByteViews.utf8("customer-1"), ByteViews.utf8("4"));
+
+        assertArrayEquals(ByteViews.utf8("4"), store.get(ByteViews.utf8("customer-1")));
+        assertEquals(2, store.size());
+
+        assertTrue(store.delete(ByteViews.utf8("customer-1")));
+        assertFalse(store.delete(ByteViews.utf8("customer-1")));
+        assertNull(store.get(ByteViews.utf8("customer-1")));
+        assertArrayEquals(ByteViews.utf8("5"), store.get(ByteViews.utf8("customer-2")));
+        assertEquals(1, store.size());
+    }
+
+    @Test
+    void testMatchesHashMapAcrossGrowthAndCompaction() {
+        var store = new OffHeapKeyValueStore(256, 4);
+        var expected = new HashMap<String, String>();
+        var random = new Random(42);
+
+        for (int i = 0; i < 200_000; i++) {
+            var key = "key-" + random.nextInt(5_000);
+            if (random.nextInt(10) == 0) {
+                assertEquals(expected.remove(key) != null, store.delete(ByteViews.utf8(key)));
+            } else {
+                var value = "value-" + i;
+                expected.put(key, value);
+                store.put(ByteViews.utf8(key), ByteViews.utf8(value));
+            }
+        }
+
+        assertEquals(expected.size(), store.size());
+        for (int k = 0; k < 5_000; k++) {
+            var key = "key-" + k;
+            var value = store.get(ByteViews.utf8(key));
+            assertEquals(expected.get(key), value == null ? null : new String(value));
+        }
+        // overwrites are compacted away instead of growing the arena without bound
+        assertTrue(store.offHeapBytes() < 1024 * 1024, "arena: " + store.offHeapBytes());
+    }
+}
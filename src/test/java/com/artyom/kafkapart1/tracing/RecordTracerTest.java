@@ -0,0 +1,66 @@
+package com.artyom.kafkapart1.tracing;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecordTracerTest {
+
+    @Test
+    void testTopicsAreOffUntilEnabled() {
+        var tracer = new RecordTracer();
+        assertFalse(tracer.sampled("order-events", 0));
+
+        tracer.enable("order-events", Sampling.everyNth(1));
+        assertTrue(tracer.sampled("order-events", 0));
+        assertFalse(tracer.sampled("payment-events", 0));
+        assertEquals(Map.of("order-events", "1-in-1"), tracer.enabled());
+
+        tracer.disable("order-events");
+        assertFalse(tracer.sampled("order-events", 0));
+    }
+
+    @Test
+    void testEveryNthSamplesExactShare() {
+        var sampling = Sampling.everyNth(100);
+        long sampled = IntStream.range(0, 10_000).filter(i -> sampling.sample(i % 3)).count();
+        assertEquals(100, sampled);
+    }
+
+    @Test
+    void testPerSecondLimitIsPerPartition() {
+        var sampling = Sampling.perPartitionPerSecond(5);
+        long partition0 = IntStream.range(0, 1_000).filter(i -> sampling.sample(0)).count();
+        long partition1 = IntStream.range(0, 1_000).filter(i -> sampling.sample(1)).count();
+
+        // the loop may straddle a second boundary, which opens one more window
+        assertTrue(partition0 >= 5 && partition0 <= 10, "partition 0 sampled " + partition0);
+        assertTrue(partition1 >= 5 && partition1 <= 10, "partition 1 sampled " + partition1);
+    }
+
+    @Test
+    void testSamplingFactoriesRejectNonPositiveValues() {
+        assertThrows(IllegalArgumentException.class, () -> Sampling.everyNth(0));
+        assertThrows(IllegalArgumentException.class, () -> Sampling.everyNth(-5));
+        assertThrows(IllegalArgumentException.class, () -> Sampling.perPartitionPerSecond(0));
+        assertThrows(IllegalArgumentException.class, () -> Sampling.perPartitionPerSecond(-1));
+    }
+
+    @Test
+    void testEndpointRejectsNonPositiveValuesAndKeepsTracing() {
+        var tracer = new RecordTracer();
+        var endpoint = new RecordTracingEndpoint(tracer);
+        endpoint.enable("order-events", 10L, null);
+
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.enable("order-events", 0L, null));
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.enable("order-events", null, 0));
+        assertThrows(InvalidEndpointRequestException.class, () -> endpoint.enable("order-events", 5L, -3));
+
+        assertEquals(Map.of("order-events", "1-in-10"), endpoint.topics());
+        assertTrue(tracer.sampled("order-events", 0));
+    }
+}
@@ -0,0 +1,202 @@
+package com.artyom.kafkapart1.transaction;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import com.artyom.kafkapart1.producer.KafkaSenderFactory;
+import com.artyom.kafkapart1.producer.SenderProperties;
+import com.artyom.kafkapart1.producer.ThroughputProfile;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import reactor.core.publisher.Flux;
+import reactor.kafka.receiver.KafkaReceiver;
+import reactor.kafka.receiver.ReceiverOptions;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringJUnitConfig
+@EmbeddedKafka(partitions = 2,
+               topics = {"eos-in", "eos-out", "eos-abort-in", "eos-abort-out"},
+               brokerProperties = {"transaction.state.log.replication.factor=1", "transaction.state.log.min.isr=1"})
+class ExactlyOncePipelineTest {
+
+    private static final int MESSAGES = 100;
+
+    @Autowired
+    private EmbeddedKafkaBroker broker;
+
+    private final List<KafkaSender<?, ?>> senders = new ArrayList<>();
+
+    @Test
+    void testManyRecordsPerTransaction() {
+        var assigned = new CountDownLatch(1);
+        var transactions = new CopyOnWriteArrayList<Long>();
+
+        StepVerifier.create(process("eos-in", "eos-out", "eos-group", upperCase("eos-out"), assigned)
+                                .doOnNext(transactions::add)
+                                .scan(0L, Long::sum)
+                                .takeUntil(written -> written >= MESSAGES))
+            .then(() -> {
+                awaitAssignment(assigned);
+                produce("eos-in");
+            })
+            .thenConsumeWhile(written -> written <= MESSAGES)
+            .verifyComplete();
+
+        assertTrue(transactions.size() < MESSAGES / 2, "transactions: " + transactions);
+        assertTrue(transactions.stream().allMatch(size -> size <= 25));
+        assertEquals(MESSAGES, committedOffsets("eos-group"));
+        assertOutputIsExactlyOnce("eos-out");
+    }
+
+    @Test
+    void testFailedBatchIsAbortedAndReprocessedOnRestart() {
+        var failing = upperCase("eos-abort-out").andThen(record -> {
+            if (record.value().equals("ORDER-60")) {
+                throw new IllegalStateException("poison record");
+            }
+            return record;
+        });
+        var assigned = new CountDownLatch(1);
+
+        StepVerifier.create(process("eos-abort-in", "eos-abort-out", "eos-abort-group", failing, assigned))
+            .then(() -> {
+                awaitAssignment(assigned);
+                produce("eos-abort-in");
+            })
+            .thenConsumeWhile(written -> true)
+            .verifyErrorMessage("poison record");
+
+        closeSenders();
+        var committed = committedOffsets("eos-abort-group");
+        assertTrue(committed < MESSAGES);
+
+        // the restarted member owns both partitions before it writes its first transaction
+        var reassigned = new CountDownLatch(1);
+        StepVerifier.create(process("eos-abort-in", "eos-abort-out", "eos-abort-group", upperCase("eos-abort-out"),
+                                    reassigned)
+                                .scan(committed, Long::sum)
+                                .takeUntil(written -> written >= MESSAGES))
+            .then(() -> awaitAssignment(reassigned))
+            .thenConsumeWhile(written -> written <= MESSAGES)
+            .verifyComplete();
+
+        assertEquals(MESSAGES, committedOffsets("eos-abort-group"));
+        assertOutputIsExactlyOnce("eos-abort-out");
+    }
+
+    /*
+        assigned counts down on the first assignment of the pipeline's consumer
+     */
+    private Flux<Long> process(String input, String output, String groupId,
+                               Function<ConsumerRecord<String, String>, ProducerRecord<String, String>> transform,
+                               CountDownLatch assigned) {
+        var receiverOptions = ExactlyOncePipeline.exactlyOnce(
+                ReceiverOptions.<String, String>create(consumerConfig(groupId)), 25)
+            .subscription(List.of(input))
+            .addAssignListener(partitions -> assigned.countDown());
+        var senderOptions = ExactlyOncePipeline.transactional(
+            factory().senderOptions(StringSerializer.class, StringSerializer.class), output + "-tx");
+        var sender = KafkaSender.create(senderOptions);
+        senders.add(sender);
+        return new ExactlyOncePipeline<>(KafkaReceiver.create(receiverOptions), sender, transform).process();
+    }
+
+    /*
+        closed from the test thread, closing inside the pipeline would block the sender's own scheduler
+     */
+    @AfterEach
+    void closeSenders() {
+        senders.forEach(KafkaSender::close);
+        senders.clear();
+    }
+
+    private static void awaitAssignment(CountDownLatch assigned) {
+        try {
+            assertTrue(assigned.await(30, TimeUnit.SECONDS), "no partitions assigned");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Function<ConsumerRecord<String, String>, ProducerRecord<String, String>> upperCase(String topic) {
+        return record -> new ProducerRecord<>(topic, record.key(), record.value().toUpperCase());
+    }
+
+    private void produce(String topic) {
+        var sender = factory().createStringSender();
+        StepVerifier.create(sender.send(Flux.range(0, MESSAGES)
+                                            .map(i -> SenderRecord.create(new ProducerRecord<>(topic, String.valueOf(i), "order-" + i), i)))
+                                .doFinally(s -> sender.close()))
+            .expectNextCount(MESSAGES)
+            .verifyComplete();
+    }
+
+    private void assertOutputIsExactlyOnce(String topic) {
+        var options = ExactlyOncePipeline.readCommitted(
+                ReceiverOptions.<String, String>create(consumerConfig(topic + "-verifier")))
+            .subscription(List.of(topic));
+        var values = KafkaReceiver.create(options)
+            .receive()
+            .map(ConsumerRecord::value)
+            .take(Duration.ofSeconds(5))
+            .collectList()
+            .block();
+
+        assertEquals(MESSAGES, values.size());
+        assertEquals(MESSAGES, new HashSet<>(values).size());
+        assertTrue(values.contains("ORDER-60"));
+    }
+
+    private long committedOffsets(String groupId) {
+        try (var admin = AdminClient.create(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString()))) {
+            return admin.listConsumerGroupOffsets(groupId)
+                .partitionsToOffsetAndMetadata()
+                .get()
+                .values()
+                .stream()
+                .mapToLong(OffsetAndMetadata::offset)
+                .sum();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private KafkaSenderFactory factory() {
+        return new KafkaSenderFactory(SenderProperties.of(ThroughputProfile.DURABLE)
+                                          .withBootstrapServers(broker.getBrokersAsString()));
+    }
+
+    private Map<String, Object> consumerConfig(String groupId) {
+        return Map.<String, Object>of(
+            ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+            ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+            ConsumerConfig.GROUP_ID_CONFIG, groupId,
+            ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest"
+        );
+    }
+}
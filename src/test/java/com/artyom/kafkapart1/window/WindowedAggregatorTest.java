@@ -0,0 +1,162 @@
+package com.artyom.kafkapart1.window;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedAggregatorTest {
+
+    private static final long MINUTE = 60_000;
+
+    @Test
+    void testTumblingWindowsAreEmittedOnceTheWatermarkPassesTheirEnd() {
+        var aggregator = new WindowedAggregator<String, Long>(WindowSpec.tumbling(Duration.ofMinutes(1)),
+                                                              Duration.ofSeconds(10), Long::longValue);
+
+        assertEquals(List.of(), aggregator.add("customer-1", 1_000, 100L));
+        assertEquals(List.of(), aggregator.add("customer-2", 2_000, 50L));
+        assertEquals(List.of(), aggregator.add("customer-1", 59_000, 300L));
+        // in the next window, but within the lateness: nothing is closed yet
+        assertEquals(List.of(), aggregator.add("customer-1", MINUTE + 5_000, 7L));
+
+        var closed = aggregator.add("customer-2", MINUTE + 10_000, 1L);
+        assertEquals(2, closed.size());
+        assertTrue(closed.contains(new WindowResult<>("customer-1", 0, MINUTE, 2, 400, 100, 300)));
+        assertTrue(closed.contains(new WindowResult<>("customer-2", 0, MINUTE, 1, 50, 50, 50)));
+
+        // its window is already emitted
+        assertEquals(List.of(), aggregator.add("customer-1", 30_000, 1_000L));
+        assertEquals(1, aggregator.lateRecords());
+
+        assertEquals(List.of(new WindowResult<>("customer-1", MINUTE, 2 * MINUTE, 1, 7, 7, 7),
+                             new WindowResult<>("customer-2", MINUTE, 2 * MINUTE, 1, 1, 1, 1)),
+                     aggregator.flush().stream().sorted((a, b) -> a.key().compareTo(b.key())).toList());
+        assertEquals(0, aggregator.openWindows());
+    }
+
+    @Test
+    void testHoppingWindowsCountEveryOverlappingWindow() {
+        var aggregator = new WindowedAggregator<String, Long>(WindowSpec.hopping(Duration.ofMinutes(1), Duration.ofSeconds(20)),
+                                                              Duration.ZERO, Long::longValue);
+        aggregator.add("customer-1", 45_000, 1L);
+
+        var starts = aggregator.flush().stream().map(WindowResult::start).sorted().toList();
+        assertEquals(List.of(0L, 20_000L, 40_000L), starts);
+    }
+
+    @Test
+    void testSessionsMergeWithinGapAndSplitAfterIt() {
+        var aggregator = new WindowedAggregator<String, Long>(WindowSpec.session(Duration.ofSeconds(30)),
+                                                              Duration.ofMinutes(10), Long::longValue);
+        aggregator.add("customer-1", 10_000, 1L);
+        aggregator.add("customer-1", 35_000, 2L);
+        aggregator.add("customer-1", 20_000, 3L);
+
+        var closed = aggregator.add("customer-1", 70_000, 4L);
+        assertEquals(List.of(new WindowResult<>("customer-1", 10_000, 35_001, 3, 6, 1, 3)), closed);
+        assertEquals(List.of(new WindowResult<>("customer-1", 70_000, 70_001, 1, 4, 4, 4)), aggregator.flush());
+    }
+
+    @Test
+    void testAggregateEmitsIncrementallyAndFlushesOnCompletion() {
+        var aggregator = new WindowedAggregator<String, Long>(WindowSpec.tumbling(Duration.ofMinutes(1)),
+                                                              Duration.ZERO, Long::longValue);
+        var records = Flux.range(0, 10_000)
+            .map(i -> record("customer-" + (i % 10), i * 1_000L, 1L));
+
+        // minutes 0 - 165 close while the input is still open
+        StepVerifier.create(aggregator.aggregate(records.concatWith(Flux.never())))
+            .expectNextCount(10 * 166)
+            .thenCancel()
+            .verify();
+
+        var last = new WindowedAggregator<String, Long>(WindowSpec.tumbling(Duration.ofMinutes(1)),
+                                                        Duration.ZERO, Long::longValue);
+        StepVerifier.create(last.aggregate(records).skip(10 * 166))
+            .recordWith(ArrayList::new)
+            .expectNextCount(10)
+            .consumeRecordedWith(results -> assertTrue(results.stream()
+                                                           .allMatch(r -> r.start() == 166 * MINUTE && r.count() == 4)))
+            .verifyComplete();
+        assertEquals(0, last.openWindows());
+    }
+
+    @Test
+    void testNullKeyIsAggregatedUnderItsOwnId() {
+        var aggregator = new WindowedAggregator<String, Long>(WindowSpec.tumbling(Duration.ofMinutes(1)),
+                                                              Duration.ZERO, Long::longValue);
+        var records = Flux.just(record(null, 1_000, 5L), record("customer-1", 2_000, 1L), record(null, 3_000, 7L));
+
+        StepVerifier.create(aggregator.aggregate(records).filter(r -> r.key() == null))
+            .expectNext(new WindowResult<>(null, 0, MINUTE, 2, 12, 5, 7))
+            .verifyComplete();
+    }
+
+    @Test
+    void testStaggeredClosesOverManyKeysMatchBruteForce() {
+        var random = new Random(3);
+        var aggregator = new WindowedAggregator<Integer, Long>(WindowSpec.hopping(Duration.ofSeconds(3), Duration.ofSeconds(1)),
+                                                               Duration.ofSeconds(2), Long::longValue);
+        var expected = new HashMap<List<Long>, long[]>();
+        var actual = new HashMap<List<Long>, long[]>();
+        long now = 0;
+        for (int i = 0; i < 200_000; i++) {
+            now += random.nextInt(3);
+            int key = random.nextInt(2_000);
+            long timestamp = Math.max(0, now - random.nextInt(2_000));
+            long value = random.nextInt(100);
+            for (long start = timestamp - timestamp % 1_000; start > timestamp - 3_000; start -= 1_000) {
+                var window = expected.computeIfAbsent(List.of((long) key, start), w -> new long[2]);
+                window[0]++;
+                window[1] += value;
+            }
+            aggregator.add(key, timestamp, value).forEach(r -> actual.put(List.of((long) r.key(), r.start()),
+                                                                         new long[]{r.count(), r.sum()}));
+        }
+        aggregator.flush().forEach(r -> actual.put(List.of((long) r.key(), r.start()), new long[]{r.count(), r.sum()}));
+
+        assertEquals(0, aggregator.lateRecords());
+        assertEquals(0, aggregator.openWindows());
+        assertEquals(expected.keySet(), actual.keySet());
+        expected.forEach((window, counts) -> assertArrayEquals(counts, actual.get(window), window.toString()));
+    }
+
+    @Test
+    void testGrowingSessionsAreClosedOnceWithEveryRecord() {
+        var random = new Random(5);
+        var aggregator = new WindowedAggregator<Integer, Long>(WindowSpec.session(Duration.ofMillis(500)),
+                                                               Duration.ofSeconds(1), Long::longValue);
+        long emitted = 0;
+        long now = 0;
+        for (int i = 0; i < 100_000; i++) {
+            now += random.nextInt(3);
+            for (var session : aggregator.add(random.nextInt(1_000), now - random.nextInt(1_000), 1L)) {
+                assertTrue(session.end() - session.start() <= now, session.toString());
+                emitted += session.count();
+            }
+        }
+        for (var session : aggregator.flush()) {
+            emitted += session.count();
+        }
+
+        assertEquals(100_000, emitted + aggregator.lateRecords());
+        assertEquals(0, aggregator.openWindows());
+    }
+
+    private static ConsumerRecord<String, Long> record(String key, long timestamp, long value) {
+        return new ConsumerRecord<>("order-events", 0, timestamp, timestamp, TimestampType.CREATE_TIME,
+                                    0, 0, key, value, new RecordHeaders(), Optional.empty());
+    }
+}